@@ -0,0 +1,108 @@
+package com.example.helloworld;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.helloworld.config.Paths;
+
+// The protected route with tokens from two local issuers: the primary one, and a second trusted one
+// whose decoder and key set are built from its discovery document when its first token arrives.
+// "untrusted" signs with a third issuer that isn't configured, which has to be turned away without a network call.
+// New tokens are minted per invocation so every request goes past the verified-token cache to the decoders.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MultiIssuerBenchmark {
+
+  private static final String SECOND_AUDIENCE = "https://second-tenant.example.com";
+
+  @Param({ "primary", "trusted", "untrusted" })
+  private String tokenIssuer;
+
+  private LocalIssuer primary;
+
+  private LocalIssuer second;
+
+  private LocalIssuer untrusted;
+
+  private ConfigurableApplicationContext context;
+
+  private MockMvc mvc;
+
+  private String path;
+
+  private int expectedStatus;
+
+  @Setup
+  public void setUp() throws Exception {
+    primary = LocalIssuer.start();
+    second = LocalIssuer.start();
+    untrusted = LocalIssuer.start();
+    context = LocalApplication.start(
+      primary,
+      "--application.issuers.trusted[0].issuer-uri=" + second.issuerUri(),
+      "--application.issuers.trusted[0].audiences=" + SECOND_AUDIENCE
+    );
+    mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+      .apply(springSecurity())
+      .build();
+    path = Paths.apiPath().messagesPath().protectedPath().build();
+    expectedStatus = "untrusted".equals(tokenIssuer)
+      ? HttpStatus.UNAUTHORIZED.value()
+      : HttpStatus.OK.value();
+
+    final var status = request().getResponse().getStatus();
+
+    if (status != expectedStatus) {
+      throw new IllegalStateException("GET %s answered %d, expected %d".formatted(path, status, expectedStatus));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    primary.close();
+    second.close();
+    untrusted.close();
+  }
+
+  @Benchmark
+  public MvcResult request() throws Exception {
+    return mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, "Bearer " + token()))
+      .andReturn();
+  }
+
+  private String token() {
+    return switch (tokenIssuer) {
+      case "primary" -> primary.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1));
+      case "trusted" -> second.mint(SECOND_AUDIENCE, Duration.ofHours(1));
+      default -> untrusted.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1));
+    };
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.helloworld;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.security.CorsPolicyFilter;
+import com.example.helloworld.config.security.ResponseHeadersFilter;
+
+// End to end through the real application context: CORS and header filters, the security filter chain with
+// JWT decoding, the router and the handler. The issuer is a LocalIssuer, so no Auth0 tenant is needed.
+// The same token is sent every time, like a SPA does, so authenticated routes hit the verified-token cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouteBenchmark {
+
+  @Param({ "public", "protected", "admin" })
+  private String route;
+
+  private LocalIssuer issuer;
+
+  private ConfigurableApplicationContext context;
+
+  private MockMvc mvc;
+
+  private String path;
+
+  private String authorization;
+
+  @Setup
+  public void setUp() throws Exception {
+    issuer = LocalIssuer.start();
+    context = LocalApplication.start(issuer);
+    mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+      .addFilters(context.getBean(ResponseHeadersFilter.class), context.getBean(CorsPolicyFilter.class))
+      .apply(springSecurity())
+      .build();
+    path = Paths.endpoints().stream()
+      .filter(endpoint -> endpoint.segment().equals("/" + route))
+      .findFirst()
+      .orElseThrow()
+      .build();
+    authorization = "Bearer " + issuer.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1));
+
+    final var status = request().getResponse().getStatus();
+
+    if (status != HttpStatus.OK.value()) {
+      throw new IllegalStateException("GET %s answered %d, expected 200".formatted(path, status));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    issuer.close();
+  }
+
+  @Benchmark
+  public MvcResult request() throws Exception {
+    return mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, authorization))
+      .andReturn();
+  }
+
+  // What a browser sends before its first cross-origin request, answered in front of the security chain
+  @Benchmark
+  public MvcResult preflight() throws Exception {
+    return mvc.perform(options(path)
+        .header(HttpHeaders.ORIGIN, LocalApplication.CLIENT_ORIGIN)
+        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET")
+        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "authorization"))
+      .andReturn();
+  }
+}
@@ -0,0 +1,180 @@
+package com.example.helloworld;
+
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import com.example.helloworld.config.Paths;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Time from launching the application's JVM to its first 200 from the protected route, which is what counts when
+// instances are started in a burst. JMH can't measure this (its forks run on its own classpath, so no CDS archive
+// applies), so each variant is started as a fresh process from build/cds, runs times, against a LocalIssuer.
+// Run with ./gradlew startupBenchmark, which records the archive first. Arguments: <build/cds> <runs> <results.json>
+public final class StartupBenchmark {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+  private static final String ARCHIVE = "app.jsa";
+
+  private static final String FAST_START_PROFILE = "--spring.profiles.active=fast-start";
+
+  private enum Variant {
+    DEFAULT(List.of(), List.of()),
+    FAST_START(List.of(), List.of(FAST_START_PROFILE)),
+    FAST_START_CDS(List.of("-XX:SharedArchiveFile=" + ARCHIVE), List.of(FAST_START_PROFILE));
+
+    private final List<String> jvmArgs;
+
+    private final List<String> appArgs;
+
+    Variant(final List<String> jvmArgs, final List<String> appArgs) {
+      this.jvmArgs = jvmArgs;
+      this.appArgs = appArgs;
+    }
+  }
+
+  private StartupBenchmark() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final var directory = Path.of(args[0]);
+    final var runs = Integer.parseInt(args[1]);
+    final var resultFile = Path.of(args[2]);
+    final var results = new LinkedHashMap<String, Map<String, Object>>();
+
+    try (var issuer = LocalIssuer.start()) {
+      final var authorization = "Bearer " + issuer.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1));
+
+      for (final var variant : Variant.values()) {
+        if (!variant.jvmArgs.isEmpty() && !Files.exists(directory.resolve(ARCHIVE))) {
+          System.out.printf("%-16s skipped, no %s in %s%n", variant, ARCHIVE, directory);
+          continue;
+        }
+
+        final var millis = new long[runs];
+
+        for (var i = 0; i < runs; i++) {
+          millis[i] = timeToFirstRequest(directory, variant, issuer, authorization);
+        }
+
+        Arrays.sort(millis);
+        System.out.printf(
+          "%-16s min %6d ms   median %6d ms   max %6d ms%n",
+          variant,
+          millis[0],
+          millis[runs / 2],
+          millis[runs - 1]
+        );
+        results.put(variant.name().toLowerCase(Locale.ROOT), Map.of(
+          "runs", runs,
+          "minMillis", millis[0],
+          "medianMillis", millis[runs / 2],
+          "maxMillis", millis[runs - 1]
+        ));
+      }
+    }
+
+    Files.createDirectories(resultFile.toAbsolutePath().getParent());
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), results);
+  }
+
+  private static long timeToFirstRequest(
+    final Path directory,
+    final Variant variant,
+    final LocalIssuer issuer,
+    final String authorization
+  ) throws IOException, InterruptedException {
+    final var port = freePort();
+    final var command = new ArrayList<String>();
+
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(variant.jvmArgs);
+    // the same relative -jar the archive was recorded with, otherwise the JVM refuses the archive
+    command.addAll(List.of(
+      "-jar", "app.jar",
+      "--server.port=" + port,
+      "--management.server.port=0",
+      "--application.audience=" + LocalIssuer.AUDIENCE,
+      "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.issuerUri(),
+      "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+      "--logging.level.root=warn"
+    ));
+    command.addAll(variant.appArgs);
+
+    final var builder = new ProcessBuilder(command)
+      .directory(directory.toFile())
+      .redirectErrorStream(true)
+      .redirectOutput(Redirect.appendTo(directory.resolve("startup-benchmark.log").toFile()));
+
+    // read by the startup check, the command line above wins for the settings that use them
+    builder.environment().putAll(Map.of(
+      "PORT", Integer.toString(port),
+      "CLIENT_ORIGIN_URL", "http://localhost:4040",
+      "AUTH0_DOMAIN", "127.0.0.1",
+      "AUTH0_AUDIENCE", LocalIssuer.AUDIENCE
+    ));
+
+    final var client = HttpClient.newHttpClient();
+    final var request = HttpRequest.newBuilder(URI.create(
+        "http://127.0.0.1:" + port + Paths.apiPath().messagesPath().protectedPath().build()
+      ))
+      .header(HttpHeaders.AUTHORIZATION, authorization)
+      .timeout(TIMEOUT)
+      .build();
+    final var started = System.nanoTime();
+    final var process = builder.start();
+
+    try {
+      while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException("The application exited with " + process.exitValue()
+            + ", see " + directory.resolve("startup-benchmark.log"));
+        }
+
+        try {
+          if (client.send(request, BodyHandlers.discarding()).statusCode() == HttpStatus.OK.value()) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+          }
+        } catch (final IOException e) {
+          // not listening yet, or the connection was dropped while the app was still starting
+        }
+
+        Thread.sleep(POLL_INTERVAL.toMillis());
+      }
+
+      throw new IllegalStateException("No successful request within " + TIMEOUT);
+    } finally {
+      process.destroy();
+
+      if (!process.waitFor(10, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.helloworld;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.security.CorsPolicyFilter;
+import com.example.helloworld.config.security.ResponseHeadersFilter;
+
+// The 401 path under load, as during credential stuffing or when a client keeps sending an expired token:
+// several threads hitting the protected route with no token, a token that isn't a JWT, or an expired one.
+// Rejected tokens are never cached, so "expired" also pays for the signature check every time.
+// Throughput, since what matters here is how many rejections the app can turn out.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UnauthenticatedBenchmark {
+
+  @Param({ "missing", "malformed", "expired" })
+  private String token;
+
+  private LocalIssuer issuer;
+
+  private ConfigurableApplicationContext context;
+
+  private MockMvc mvc;
+
+  private String path;
+
+  private String authorization;
+
+  @Setup
+  public void setUp() throws Exception {
+    issuer = LocalIssuer.start();
+    context = LocalApplication.start(issuer);
+    mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+      .addFilters(context.getBean(ResponseHeadersFilter.class), context.getBean(CorsPolicyFilter.class))
+      .apply(springSecurity())
+      .build();
+    path = Paths.apiPath().messagesPath().protectedPath().build();
+    authorization = switch (token) {
+      case "malformed" -> "Bearer not-a-jwt";
+      case "expired" -> "Bearer " + issuer.mint(LocalIssuer.AUDIENCE, Duration.ofHours(-1));
+      default -> null;
+    };
+
+    final var status = request().getResponse().getStatus();
+
+    if (status != HttpStatus.UNAUTHORIZED.value()) {
+      throw new IllegalStateException("GET %s answered %d, expected 401".formatted(path, status));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    issuer.close();
+  }
+
+  @Benchmark
+  public MvcResult request() throws Exception {
+    final var request = get(path);
+
+    if (Objects.nonNull(authorization)) {
+      request.header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+
+    return mvc.perform(request).andReturn();
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.helloworld.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.unit.DataSize;
+
+import com.example.helloworld.LocalIssuer;
+
+// ApplicationProperties as application.yml would bind them, for benchmarks that build components by hand
+public final class BenchmarkProperties {
+
+  private BenchmarkProperties() {
+  }
+
+  public static ApplicationProperties defaults() {
+    return withResponseHeaders(new ApplicationProperties.ResponseHeaders(Map.of(), Map.of()));
+  }
+
+  public static ApplicationProperties withResponseHeaders(final ApplicationProperties.ResponseHeaders headers) {
+    return new ApplicationProperties(
+      LocalIssuer.AUDIENCE,
+      List.of("http://localhost:4040"),
+      new ApplicationProperties.JwtCache(10_000, Duration.ofMinutes(5)),
+      new ApplicationProperties.Jwks(
+        Duration.ofMinutes(10),
+        Duration.ofSeconds(30),
+        Duration.ofSeconds(5),
+        List.of("RS256")
+      ),
+      new ApplicationProperties.Discovery(
+        ApplicationProperties.IssuerDiscoveryMode.DEFERRED,
+        Path.of(System.getProperty("java.io.tmpdir"), "helloworld", "issuer-metadata.json")
+      ),
+      headers,
+      // benchmarks send far more requests than a client is allowed to
+      new ApplicationProperties.RateLimits(false, Duration.ofMinutes(10), Map.of()),
+      new ApplicationProperties.ConcurrencyLimits(false, Duration.ofSeconds(1), Map.of()),
+      new ApplicationProperties.Revocation(null, Duration.ofSeconds(30), 100_000, 0.001),
+      new ApplicationProperties.Issuers(8, List.of()),
+      new ApplicationProperties.Messages(
+        ApplicationProperties.MessageStore.MEMORY,
+        Path.of(System.getProperty("java.io.tmpdir"), "helloworld", "messages.ndjson"),
+        null,
+        50,
+        500
+      ),
+      new ApplicationProperties.Audit(
+        false,
+        Path.of(System.getProperty("java.io.tmpdir"), "helloworld", "audit.ndjson"),
+        8192,
+        256,
+        DataSize.ofMegabytes(64),
+        5,
+        ApplicationProperties.AuditOverflow.DROP,
+        Duration.ofMillis(5)
+      ),
+      new ApplicationProperties.Transport(
+        ApplicationProperties.TransportMode.H2C,
+        Duration.ofSeconds(65),
+        10_000,
+        8192,
+        100,
+        128
+      ),
+      new ApplicationProperties.Compression(true, DataSize.ofKilobytes(1)),
+      null
+    );
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.helloworld.config.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ApplicationProperties.AuditOverflow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// What auditing costs a request thread: building the record and putting it on the queue, from 4 threads at once
+// while the writer drains it into a temporary file. Under drop a full queue shows up as dropped records
+// (printed at the end), under wait as slower submits.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AuditLogBenchmark {
+
+  @Param({ "drop", "wait" })
+  private String overflow;
+
+  private Path directory;
+
+  private AuditLog auditLog;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("audit");
+    auditLog = new AuditLog(
+      new ApplicationProperties.Audit(
+        true,
+        directory.resolve("audit.ndjson"),
+        8192,
+        256,
+        DataSize.ofMegabytes(64),
+        2,
+        AuditOverflow.valueOf(overflow.toUpperCase(Locale.ROOT)),
+        Duration.ofMillis(5)
+      ),
+      new ObjectMapper().findAndRegisterModules()
+    ).start();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    auditLog.close();
+    System.out.printf("%n%.0f audit records written, %.0f dropped%n", auditLog.written(), auditLog.dropped());
+    FileSystemUtils.deleteRecursively(directory);
+  }
+
+  @Benchmark
+  public void submit() {
+    final var entry = new AuditEntry(System.nanoTime());
+
+    entry.subject("auth0|benchmark");
+    auditLog.submit(entry.toRecord("GET", "/api/messages/protected", 200));
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.helloworld.config.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.example.helloworld.LocalIssuer;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// JWT decode + validation through the decoder SecurityConfig builds, over a locally generated RSA key
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtDecoderBenchmark {
+
+  private static final String ISSUER = "https://benchmark.example.com/";
+
+  private static final String UNREVOKED_JTI = UUID.randomUUID().toString();
+
+  private NimbusJwtDecoder decoder;
+
+  private CachingJwtDecoder cachingDecoder;
+
+  private AudienceValidator audienceValidator;
+
+  private TokenRevocations revocations;
+
+  private String token;
+
+  private Jwt jwt;
+
+  @Setup
+  public void setUp() throws JOSEException {
+    final var key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+    final var keySource = new ImmutableJWKSet<SecurityContext>(new JWKSet(key.toPublicJWK()));
+
+    // metrics are recorded like in the app, into a registry nobody reads
+    final var metrics = new AuthMetrics(new SimpleMeterRegistry());
+
+    decoder = SecurityConfig.makeJwtDecoder(
+      keySource,
+      Set.of(JWSAlgorithm.RS256),
+      ISSUER,
+      Set.of(LocalIssuer.AUDIENCE),
+      new TokenRevocations(100_000, 0.001),
+      metrics
+    );
+    cachingDecoder = new CachingJwtDecoder(decoder, 10_000, Duration.ofMinutes(5));
+    audienceValidator = new AudienceValidator(LocalIssuer.AUDIENCE);
+    revocations = new TokenRevocations(100_000, 0.001);
+    revocations.revokeAll(IntStream.range(0, 100_000)
+      .boxed()
+      .collect(Collectors.toMap(i -> UUID.randomUUID().toString(), i -> Instant.now().plus(Duration.ofHours(1)))));
+    token = LocalIssuer.mint(key, ISSUER, LocalIssuer.AUDIENCE, Duration.ofHours(1));
+    jwt = decoder.decode(token);
+  }
+
+  // full RS256 signature check plus the issuer, timestamp and audience validators
+  @Benchmark
+  public Jwt decode() {
+    return decoder.decode(token);
+  }
+
+  // the steady state for a client reusing its token: digest + cache lookup
+  @Benchmark
+  public Jwt decodeCached() {
+    return cachingDecoder.decode(token);
+  }
+
+  @Benchmark
+  public OAuth2TokenValidatorResult withAudience() {
+    return audienceValidator.validate(jwt);
+  }
+
+  // a token that isn't revoked, against a full denylist: answered by the Bloom filter
+  @Benchmark
+  public boolean notRevoked() {
+    return revocations.isRevoked(UNREVOKED_JTI);
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.helloworld.config.security;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.RegexRequestMatcher;
+
+import com.example.helloworld.config.Paths;
+
+// The path trie used by SecurityConfig against the negative-lookahead regex it replaced,
+// with the real routes plus generated ones to see how each scales with the number of protected routes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PathMatcherBenchmark {
+
+  @Param({ "2", "300" })
+  private int protectedRoutes;
+
+  private PathPrefixRequestMatcher trie;
+
+  private RegexRequestMatcher regex;
+
+  private MockHttpServletRequest protectedRequest;
+
+  private MockHttpServletRequest publicRequest;
+
+  @Setup
+  public void setUp() {
+    final var paths = new ArrayList<>(Paths.authenticatedPaths());
+
+    for (int i = paths.size(); i < protectedRoutes; i++) {
+      paths.add("/api/generated/route" + i);
+    }
+
+    final var exclusionRegex = "^(?!%s).*$".formatted(String.join("|", paths));
+
+    trie = new PathPrefixRequestMatcher(paths);
+    regex = new RegexRequestMatcher(exclusionRegex, null);
+    // the last registered route is the worst case for the regex alternation
+    protectedRequest = request(paths.get(paths.size() - 1));
+    publicRequest = request(Paths.apiPath().messagesPath().publicPath().build());
+  }
+
+  @Benchmark
+  public boolean trieProtected() {
+    return trie.matches(protectedRequest);
+  }
+
+  @Benchmark
+  public boolean triePublic() {
+    return trie.matches(publicRequest);
+  }
+
+  @Benchmark
+  public boolean regexProtected() {
+    return regex.matches(protectedRequest);
+  }
+
+  @Benchmark
+  public boolean regexPublic() {
+    return regex.matches(publicRequest);
+  }
+
+  @Benchmark
+  public String pathsBuild() {
+    return Paths.apiPath().messagesPath().adminPath().build();
+  }
+
+  private static MockHttpServletRequest request(final String path) {
+    final var request = new MockHttpServletRequest("GET", path);
+
+    request.setServletPath(path);
+    return request;
+  }
+}
@@ -0,0 +1,42 @@
+package com.example.helloworld.models;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Jackson serialization of the two response bodies the API produces
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final Message message = Message.from("This is a protected message.");
+
+  private final ErrorMessage errorMessage = ErrorMessage.from("Requires authentication");
+
+  @Benchmark
+  public byte[] message() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(message);
+  }
+
+  @Benchmark
+  public byte[] errorMessage() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(errorMessage);
+  }
+}
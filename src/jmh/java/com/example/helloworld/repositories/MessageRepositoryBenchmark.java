@@ -0,0 +1,70 @@
+package com.example.helloworld.repositories;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.helloworld.models.MessageEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Listing pages from the start and from deep into a large store: with cursor paging both should cost the same.
+// The file store is a fresh temporary file, so its pages come from the page cache rather than the disk.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MessageRepositoryBenchmark {
+
+  private static final int ENTRIES = 100_000;
+
+  private static final int PAGE_SIZE = 50;
+
+  @Param({ "memory", "file" })
+  private String store;
+
+  private MessageRepository repository;
+
+  @Setup
+  public void setUp() throws IOException {
+    repository = "file".equals(store)
+      ? FileMessageRepository.open(Files.createTempFile("messages", ".ndjson"), new ObjectMapper())
+      : new InMemoryMessageRepository();
+
+    for (var i = 0; i < ENTRIES; i++) {
+      repository.append("Stored message number " + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    if (repository instanceof final AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  @Benchmark
+  public List<MessageEntry> firstPage() {
+    return repository.page(0L, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<MessageEntry> lastPage() {
+    return repository.page(ENTRIES - PAGE_SIZE - 1, PAGE_SIZE);
+  }
+}
@@ -4,9 +4,10 @@ import static java.util.Arrays.stream;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ApplicationListener;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
@@ -14,6 +15,10 @@ import lombok.extern.log4j.Log4j2;
 @ConfigurationPropertiesScan
 public class HelloWorldApplication {
 
+  // Exits right after starting, for the training run that records the class data sharing archive
+  // (./gradlew cdsArchive). Set with --application.training-run=true
+  private static final String TRAINING_RUN = "application.training-run";
+
   enum DotEnv {
     PORT,
     CLIENT_ORIGIN_URL,
@@ -22,24 +27,39 @@ public class HelloWorldApplication {
   }
 
   public static void main(final String[] args) {
-    dotEnvSafeCheck();
+    final var context = application().run(args);
 
-    SpringApplication.run(HelloWorldApplication.class, args);
+    if (context.getEnvironment().getProperty(TRAINING_RUN, Boolean.class, false)) {
+      System.exit(SpringApplication.exit(context));
+    }
   }
 
-  private static void dotEnvSafeCheck() {
-    final var dotenv = Dotenv.configure()
-      .ignoreIfMissing()
-      .load();
+  // The application as main runs it, with the .env check
+  static SpringApplication application() {
+    final var application = new SpringApplication(HelloWorldApplication.class);
+
+    application.addListeners(new DotEnvSafeCheck());
+    return application;
+  }
+
+  // Runs once the context initializers have, when spring-dotenv's initializer has loaded .env into the environment
+  // as env.* properties (environment variables first, like Dotenv itself), so the file is read once instead of twice.
+  // The environment prepared event would be too early, spring-dotenv doesn't hook in there
+  static final class DotEnvSafeCheck implements ApplicationListener<ApplicationContextInitializedEvent> {
+
+    @Override
+    public void onApplicationEvent(final ApplicationContextInitializedEvent event) {
+      final var environment = event.getApplicationContext().getEnvironment();
 
-    stream(DotEnv.values())
-      .map(DotEnv::name)
-      .filter(varName -> dotenv.get(varName, "").isEmpty())
-      .findFirst()
-      .ifPresent(varName -> {
-        log.error("[Fatal] Missing or empty environment variable: {}", varName);
+      stream(DotEnv.values())
+        .map(DotEnv::name)
+        .filter(varName -> environment.getProperty("env." + varName, "").isEmpty())
+        .findFirst()
+        .ifPresent(varName -> {
+          log.error("[Fatal] Missing or empty environment variable: {}", varName);
 
-        System.exit(1);
-      });
+          System.exit(1);
+        });
+    }
   }
 }
@@ -0,0 +1,63 @@
+package com.example.helloworld.config;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Meters for the handlers and the error handlers, on top of the http.server.requests timer Spring Boot records
+// for whole requests. The difference between the two is the time spent in the filters (CORS, headers, security).
+// The routes come from Paths and the outcomes from an enum, so the tags can't grow with traffic.
+@Component
+public class ApiMetrics {
+
+  public enum ErrorOutcome {
+    NOT_FOUND,
+    BAD_REQUEST,
+    INTERNAL,
+    UNAUTHENTICATED,
+    FORBIDDEN,
+    RATE_LIMITED,
+    OVERLOADED
+  }
+
+  private final Map<String, Timer> handlerTimers;
+
+  private final Map<ErrorOutcome, Counter> errors = new EnumMap<>(ErrorOutcome.class);
+
+  public ApiMetrics(final MeterRegistry registry) {
+    this.handlerTimers = Paths.endpoints().stream()
+      .collect(Collectors.toUnmodifiableMap(Paths::path, endpoint -> handlerTimer(registry, endpoint)));
+
+    for (final var outcome : ErrorOutcome.values()) {
+      errors.put(outcome, Counter.builder("http.server.errors")
+        .description("Error responses written by the error handlers")
+        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+        .register(registry));
+    }
+  }
+
+  // Looked up once while the routes are registered, the handlers record straight into it
+  public Timer handlerTimer(final Paths endpoint) {
+    return Objects.requireNonNull(handlerTimers.get(endpoint.path()), () -> "Not an endpoint: " + endpoint.path());
+  }
+
+  public void recordError(final ErrorOutcome outcome) {
+    errors.get(outcome).increment();
+  }
+
+  private static Timer handlerTimer(final MeterRegistry registry, final Paths endpoint) {
+    return Timer.builder("http.server.handler")
+      .description("Time spent in the route's handler, without the filters in front of it")
+      .tag("uri", endpoint.path())
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+}
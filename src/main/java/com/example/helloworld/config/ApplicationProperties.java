@@ -1,7 +1,16 @@
 package com.example.helloworld.config;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
 
 /** This class serves as a type-safe way to access the properties defined in application.yml.
  * Instead of manually fetching and parsing values from the configuration file,
@@ -10,6 +19,174 @@ import org.springframework.boot.context.properties.ConstructorBinding;
  * It is similar to using the @Value annotation, but at a higher level. */
 @ConstructorBinding
 @ConfigurationProperties(prefix = "application")
-public record ApplicationProperties(String audience, String clientOriginUrl) {
+public record ApplicationProperties(
+  String audience,
+  List<String> clientOriginUrl,
+  JwtCache jwtCache,
+  Jwks jwks,
+  Discovery discovery,
+  ResponseHeaders responseHeaders,
+  RateLimits rateLimits,
+  ConcurrencyLimits concurrencyLimits,
+  Revocation revocation,
+  Issuers issuers,
+  Messages messages,
+  Audit audit,
+  Transport transport,
+  Compression compression,
+  @Nullable String trustedProxies
+) {
+
+  // Settings for the cache of already verified JWTs that sits in front of the JwtDecoder
+  public record JwtCache(int maximumSize, Duration maximumTtl) {
+
+  }
+
+  // Settings for the background refresh of the issuer's JSON Web Key Set (its public signing keys)
+  public record Jwks(
+    Duration refreshInterval,
+    Duration minimumRefreshInterval,
+    Duration fetchTimeout,
+    List<String> algorithms
+  ) {
+
+  }
+
+  // Settings for how the issuer's OpenID discovery document is obtained at startup
+  public record Discovery(IssuerDiscoveryMode mode, Path cacheFile) {
+
+  }
+
+  // Headers added to every response by ResponseHeadersFilter, with optional per-path overrides
+  public record ResponseHeaders(Map<String, String> defaults, Map<String, Map<String, String>> routes) {
+
+  }
+
+  // Token buckets per client for the routes listed here, see RateLimiter.
+  // Route keys are paths from Paths, a route matches its path and anything below it
+  public record RateLimits(boolean enabled, Duration idleTimeout, Map<String, Limit> routes) {
+
+    // A client may send capacity requests in a burst, then refillPerSecond requests per second
+    public record Limit(long capacity, double refillPerSecond) {
+
+    }
+  }
+
+  // Adaptive limits on the requests in flight per route group of Paths, see ConcurrencyLimiter.
+  // A group's limit is recomputed once per window, groups missing from the map aren't limited
+  public record ConcurrencyLimits(boolean enabled, Duration window, Map<Paths.Access, GroupLimit> groups) {
+
+    public ConcurrencyLimits {
+      groups = Objects.requireNonNullElse(groups, Map.of());
+    }
+
+    // The limit starts at initialLimit and stays between minimumLimit and maximumLimit. It shrinks once a window's
+    // average latency is more than tolerance times the long term average
+    public record GroupLimit(int initialLimit, int minimumLimit, int maximumLimit, double tolerance) {
+
+    }
+  }
+
+  // Revoked token ids, see TokenRevocations. Without a source the denylist stays empty
+  public record Revocation(
+    @Nullable URI source,
+    Duration pollInterval,
+    int expectedEntries,
+    double falsePositiveRate
+  ) {
+
+  }
+
+  // Issuers trusted besides spring.security.oauth2.resourceserver.jwt.issuer-uri (whose audience is the audience
+  // above). Their decoders are built when their first token arrives, at most maximumDecoders are kept
+  public record Issuers(int maximumDecoders, List<TrustedIssuer> trusted) {
+
+    public Issuers {
+      trusted = Objects.requireNonNullElse(trusted, List.of());
+    }
+  }
+
+  // Without a jwkSetUri the keys' location comes from the issuer's discovery document
+  public record TrustedIssuer(String issuerUri, @Nullable URI jwkSetUri, List<String> audiences) {
+
+  }
+
+  // Where the listing and export endpoints read messages from, see MessageRepository.
+  // A listing page holds defaultPageSize messages unless the request asks for another size, up to maximumPageSize.
+  // An empty store is filled from seedFile at startup, one message per line
+  public record Messages(
+    MessageStore store,
+    Path file,
+    @Nullable Path seedFile,
+    int defaultPageSize,
+    int maximumPageSize
+  ) {
+
+  }
+
+  // The audit trail of the authenticated endpoints, see AuditLog. Records wait in a queue of queueCapacity for
+  // the writer thread, which appends them batchSize at a time to file, rotated at maxFileSize keeping maxFiles old ones
+  public record Audit(
+    boolean enabled,
+    Path file,
+    int queueCapacity,
+    int batchSize,
+    DataSize maxFileSize,
+    int maxFiles,
+    AuditOverflow overflow,
+    Duration maximumWait
+  ) {
+
+  }
+
+  // The embedded server's connections, applied by TransportConfig to Tomcat or, on the reactive stack, Netty.
+  // Connections stay open keepAliveTimeout between requests and serve up to maxKeepAliveRequests (-1 for no limit).
+  // maxConnections and acceptCount (connections waiting to be accepted once maxConnections are open) are Tomcat only,
+  // maxConcurrentStreams is how many requests one HTTP/2 connection may have in flight at once
+  public record Transport(
+    TransportMode mode,
+    Duration keepAliveTimeout,
+    int maxKeepAliveRequests,
+    int maxConnections,
+    int acceptCount,
+    int maxConcurrentStreams
+  ) {
+
+  }
+
+  // gzip for the message responses of clients that accept it, see ResponseCompression.
+  // Bodies smaller than minimumResponseSize are sent as they are, they'd barely shrink
+  public record Compression(boolean enabled, DataSize minimumResponseSize) {
+
+  }
+
+  public enum TransportMode {
+    // HTTP/1.1 only, one request at a time per connection
+    HTTP1,
+    // cleartext HTTP/2 as well, by prior knowledge or by upgrading an HTTP/1.1 connection, e.g. from an edge proxy.
+    // HTTP/1.1 clients are served as before
+    H2C
+  }
+
+  public enum AuditOverflow {
+    // a record that doesn't fit in the queue is dropped and counted
+    DROP,
+    // the request waits up to maximumWait for room before its record is dropped. Servlet stack only,
+    // the reactive one never blocks an event loop thread and drops right away
+    WAIT
+  }
+
+  public enum MessageStore {
+    // kept in memory only, empty on every start
+    MEMORY,
+    // appended to a newline delimited JSON file, kept across restarts
+    FILE
+  }
 
+  public enum IssuerDiscoveryMode {
+    // blocking discovery call while the security config is built, the app fails to start if the issuer is down
+    EAGER,
+    // start from the configured jwk-set-uri or the cached discovery document, revalidate once the app is up
+    DEFERRED
+  }
 }
@@ -0,0 +1,120 @@
+package com.example.helloworld.config;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.example.helloworld.models.ErrorMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// ErrorMessage bodies already serialized to JSON, shared by GlobalErrorHandler and ReactiveErrorHandler.
+// The fixed messages (401, 403, 404, 429, 503) are serialized once at startup, writing one is a copy of a byte array.
+// Under a flood of bad or expired tokens 401s are most of the traffic, and this keeps them cheap.
+// Internal error and bad request messages depend on the exception, they're kept in a bounded cache:
+// once it's full, new messages are still serialized, just not remembered.
+@Component
+public final class ErrorBodies {
+
+  private static final String NOT_FOUND = "Not Found";
+
+  private static final String UNAUTHENTICATED = "Requires authentication";
+
+  private static final String FORBIDDEN = "Permission denied";
+
+  private static final String TOO_MANY_REQUESTS = "Too Many Requests";
+
+  private static final String OVERLOADED = "Service Unavailable";
+
+  // distinct exception messages remembered by internal() and badRequest()
+  private static final int MAXIMUM_CACHED_MESSAGES = 256;
+
+  private final ObjectMapper mapper;
+
+  private final byte[] notFound;
+
+  private final byte[] unauthenticated;
+
+  private final byte[] forbidden;
+
+  private final byte[] tooManyRequests;
+
+  private final byte[] overloaded;
+
+  // exceptions without a message, ConcurrentHashMap has no room for a null key
+  private final byte[] noMessage;
+
+  private final ConcurrentHashMap<String, byte[]> messages = new ConcurrentHashMap<>();
+
+  public ErrorBodies(final ObjectMapper mapper) {
+    this.mapper = mapper;
+    this.notFound = serialize(NOT_FOUND);
+    this.unauthenticated = serialize(UNAUTHENTICATED);
+    this.forbidden = serialize(FORBIDDEN);
+    this.tooManyRequests = serialize(TOO_MANY_REQUESTS);
+    this.overloaded = serialize(OVERLOADED);
+    this.noMessage = serialize(null);
+  }
+
+  // The arrays are shared, callers only ever write them out
+
+  public byte[] notFound() {
+    return notFound;
+  }
+
+  public byte[] unauthenticated() {
+    return unauthenticated;
+  }
+
+  public byte[] forbidden() {
+    return forbidden;
+  }
+
+  public byte[] tooManyRequests() {
+    return tooManyRequests;
+  }
+
+  public byte[] overloaded() {
+    return overloaded;
+  }
+
+  public byte[] internal(@Nullable final String message) {
+    return cached(message);
+  }
+
+  public byte[] badRequest(@Nullable final String message) {
+    return cached(message);
+  }
+
+  private byte[] cached(@Nullable final String message) {
+    if (Objects.isNull(message)) {
+      return noMessage;
+    }
+
+    final var cached = messages.get(message);
+
+    if (Objects.nonNull(cached)) {
+      return cached;
+    }
+
+    final var body = serialize(message);
+
+    // the size check races with other writers, so the cache may end up a few entries over, never unbounded
+    if (messages.size() < MAXIMUM_CACHED_MESSAGES) {
+      messages.putIfAbsent(message, body);
+    }
+
+    return body;
+  }
+
+  private byte[] serialize(@Nullable final String message) {
+    try {
+      return mapper.writeValueAsBytes(ErrorMessage.from(message));
+    } catch (final JsonProcessingException e) {
+      // a record with a single string can always be serialized, this would be a broken ObjectMapper
+      throw new IllegalStateException("Could not serialize an ErrorMessage", e);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.helloworld.config;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.NetUtil;
+import reactor.netty.http.server.ConnectionInfo;
+
+// Reactor Netty's forwarded support for server.forward-headers-strategy: native, but believing X-Forwarded-For and
+// X-Forwarded-Proto only on connections from application.trusted-proxies, like Tomcat's RemoteIpValve does with the
+// same pattern. Netty's own handler takes the headers from anyone, so any caller could pick its client address.
+// The header is read right to left like RemoteIpValve: addresses of trusted proxies are skipped, the first other
+// one is the client. Whatever a client put in front of that can't be trusted and is ignored.
+final class ForwardedHeaderHandler implements BiFunction<ConnectionInfo, HttpRequest, ConnectionInfo> {
+
+  static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  static final String X_FORWARDED_PROTO = "X-Forwarded-Proto";
+
+  @Nullable
+  private final Pattern trustedProxies;
+
+  // an empty pattern trusts no one
+  ForwardedHeaderHandler(@Nullable final String trustedProxies) {
+    this.trustedProxies = Objects.isNull(trustedProxies) || trustedProxies.isBlank()
+      ? null
+      : Pattern.compile(trustedProxies);
+  }
+
+  @Override
+  public ConnectionInfo apply(final ConnectionInfo connectionInfo, final HttpRequest request) {
+    final var remoteAddress = connectionInfo.getRemoteAddress();
+
+    if (Objects.isNull(remoteAddress) || !trusted(remoteAddress.getAddress().getHostAddress())) {
+      return connectionInfo;
+    }
+
+    var forwarded = connectionInfo;
+    final var client = clientAddress(request.headers().getAll(X_FORWARDED_FOR));
+    final var address = Objects.nonNull(client) ? NetUtil.createInetAddressFromIpAddressString(client) : null;
+
+    // anything but an IP literal is left alone, it would otherwise need a DNS lookup
+    if (Objects.nonNull(address)) {
+      forwarded = forwarded.withRemoteAddress(new InetSocketAddress(address, remoteAddress.getPort()));
+    }
+
+    final var proto = request.headers().get(X_FORWARDED_PROTO);
+
+    if (Objects.nonNull(proto) && !proto.isBlank()) {
+      forwarded = forwarded.withScheme(proto.trim());
+    }
+
+    return forwarded;
+  }
+
+  // The client's address in the X-Forwarded-For values, null when there is none
+  @Nullable
+  String clientAddress(final List<String> forwardedFor) {
+    final var addresses = new ArrayList<String>();
+
+    for (final var value : forwardedFor) {
+      for (final var address : value.split(",")) {
+        if (!address.isBlank()) {
+          addresses.add(address.trim());
+        }
+      }
+    }
+
+    String client = null;
+
+    for (var i = addresses.size() - 1; i >= 0; i--) {
+      client = addresses.get(i);
+
+      if (!trusted(client)) {
+        break;
+      }
+    }
+
+    return client;
+  }
+
+  private boolean trusted(final String address) {
+    return Objects.nonNull(trustedProxies) && trustedProxies.matcher(address).matches();
+  }
+}
@@ -5,46 +5,67 @@ import java.io.IOException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.function.ServerRequest;
 import org.springframework.web.servlet.function.ServerResponse;
 
-import com.example.helloworld.models.ErrorMessage;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.helloworld.config.ApiMetrics.ErrorOutcome;
+import com.example.helloworld.config.audit.AuditEntry;
 
 // @RestControllerAdvice is an annotation used to define @ExceptionHandler, @InitBinder, and @ModelAttribute methods
 // that apply to all @RequestMapping methods. It's a way to apply exception handling globally across multiple controllers.
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RestControllerAdvice
-public record GlobalErrorHandler(ObjectMapper mapper) {
+public record GlobalErrorHandler(ErrorBodies bodies, ApiMetrics metrics) {
+
+  // seconds, shared with ReactiveErrorHandler
+  static final String OVERLOADED_RETRY_AFTER = "1";
+
+  // The bodies come from ErrorBodies, already serialized: the fixed messages once at startup,
+  // internal error messages once per distinct message. Nothing here goes through Jackson per request.
 
   // This method handles the NoHandlerFoundException, which is thrown when a request is made to an endpoint
   // that doesn't exist in the application. It returns a 404 with a body of a custom error message with a "Not Found" message.
-  @ResponseStatus(HttpStatus.NOT_FOUND)
+  // Writing to the response directly (void return) skips the message converters.
   @ExceptionHandler(NoHandlerFoundException.class)
-  public ErrorMessage handleNotFound(final HttpServletRequest request, final Exception error) {
-    return ErrorMessage.from("Not Found");
+  public void handleNotFound(
+    final HttpServletRequest request,
+    final HttpServletResponse response,
+    final Exception error
+  ) throws IOException {
+    recordError(request, ErrorOutcome.NOT_FOUND, null);
+    writeError(response, HttpStatus.NOT_FOUND, bodies.notFound());
   }
 
-  // @Cacheable is an annotation that indicates that the result of invoking a method (in this case, handleInternalError)
-  // can be cached. The next time the method is called with the same arguments, the cached result is returned
-  // instead of invoking the method again. This can improve performance by avoiding unnecessary computations.
   // ServerResponse is from WebFlux, defines response fluently. Equivalent in Spring MVC is ResponseEntity
-  @Cacheable
+  // Exception messages repeat, so their serialized bodies are cached by ErrorBodies, up to a fixed number.
   public ServerResponse handleInternalError(final Throwable error, final ServerRequest request) {
     // This method handles internal server errors and returns a custom error message with the error's message.
+    recordError(request.servletRequest(), ErrorOutcome.INTERNAL, error.getMessage());
     return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
-      .body(ErrorMessage.from(error.getMessage()));
+      .contentType(MediaType.APPLICATION_JSON)
+      .body(bodies.internal(error.getMessage()));
+  }
+
+  // For requests the handler can't make sense of, e.g. a listing cursor the API never handed out
+  public ServerResponse handleBadRequest(final Throwable error, final ServerRequest request) {
+    recordError(request.servletRequest(), ErrorOutcome.BAD_REQUEST, error.getMessage());
+    return ServerResponse.badRequest()
+      .contentType(MediaType.APPLICATION_JSON)
+      .body(bodies.badRequest(error.getMessage()));
   }
 
   // HttpServletResponse is lower level, gives fine grain control over response creation.
-  @Cacheable
   public void handleAuthenticationError(
     final HttpServletRequest request,
     final HttpServletResponse response,
@@ -52,12 +73,61 @@ public record GlobalErrorHandler(ObjectMapper mapper) {
   ) throws IOException {
     // This method handles authentication errors. When a user tries to access a protected resource without
     // proper authentication, this method sends a custom error message with a "Requires authentication" message.
-    final var errorMessage = ErrorMessage.from("Requires authentication");
-    final var json = mapper.writeValueAsString(errorMessage);
+    recordError(request, ErrorOutcome.UNAUTHENTICATED, error.getMessage());
+    writeError(response, HttpStatus.UNAUTHORIZED, bodies.unauthenticated());
+  }
+
+  // Used as the resource server's AccessDeniedHandler: the token is valid but doesn't grant
+  // the permissions the endpoint declares in Paths
+  public void handleAccessDenied(
+    final HttpServletRequest request,
+    final HttpServletResponse response,
+    final AccessDeniedException error
+  ) throws IOException {
+    recordError(request, ErrorOutcome.FORBIDDEN, error.getMessage());
+    writeError(response, HttpStatus.FORBIDDEN, bodies.forbidden());
+  }
+
+  // Used by RateLimitFilter once a client has used up its bucket for the route.
+  // Retry-After tells the client when its next request would be let through
+  public void handleTooManyRequests(
+    final HttpServletResponse response,
+    final long retryAfterSeconds
+  ) throws IOException {
+    metrics.recordError(ErrorOutcome.RATE_LIMITED);
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    writeError(response, HttpStatus.TOO_MANY_REQUESTS, bodies.tooManyRequests());
+  }
+
+  // Used by ConcurrencyLimitFilter when the request's route group is at its limit. Sent before the request reaches
+  // security, so there's no audit entry yet. Retry-After is short, the limit moves within seconds
+  public void handleOverloaded(final HttpServletResponse response) throws IOException {
+    metrics.recordError(ErrorOutcome.OVERLOADED);
+    response.setHeader(HttpHeaders.RETRY_AFTER, OVERLOADED_RETRY_AFTER);
+    writeError(response, HttpStatus.SERVICE_UNAVAILABLE, bodies.overloaded());
+  }
+
+  // Counted in the metrics, and noted on the request's audit entry when it's an audited request.
+  // The detail (e.g. why a token was rejected) goes to the audit trail only, never to the client
+  private void recordError(
+    final HttpServletRequest request,
+    final ErrorOutcome outcome,
+    @Nullable final String detail
+  ) {
+    metrics.recordError(outcome);
+    AuditEntry.recordOutcome(request, outcome, detail);
+  }
 
-    response.setStatus(HttpStatus.UNAUTHORIZED.value());
+  // Straight to the output stream, with the length known up front
+  private static void writeError(
+    final HttpServletResponse response,
+    final HttpStatus status,
+    final byte[] body
+  ) throws IOException {
+    response.setStatus(status.value());
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-    response.getWriter().write(json);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
     response.flushBuffer();
   }
 }
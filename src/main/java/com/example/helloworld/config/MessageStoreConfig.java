@@ -0,0 +1,63 @@
+package com.example.helloworld.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.example.helloworld.config.ApplicationProperties.MessageStore;
+import com.example.helloworld.repositories.FileMessageRepository;
+import com.example.helloworld.repositories.InMemoryMessageRepository;
+import com.example.helloworld.repositories.MessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+// The repository behind the listing and export endpoints, the same one for the servlet and reactive stacks
+@Log4j2
+@Configuration
+@RequiredArgsConstructor
+public class MessageStoreConfig {
+
+  private final ApplicationProperties applicationProps;
+
+  private final ObjectMapper mapper;
+
+  // Spring calls close() on shutdown when the repository has one, which closes the file
+  @Bean
+  public MessageRepository messageRepository() {
+    final var messagesProps = applicationProps.messages();
+    final var repository = messagesProps.store() == MessageStore.FILE
+      ? FileMessageRepository.open(messagesProps.file(), mapper)
+      : new InMemoryMessageRepository();
+
+    if (Objects.nonNull(messagesProps.seedFile())) {
+      seed(repository, messagesProps.seedFile());
+    }
+
+    return repository;
+  }
+
+  // Only into an empty store, so a file store that already holds the seed isn't given it a second time
+  static void seed(final MessageRepository repository, final Path seedFile) {
+    if (repository.size() > 0) {
+      log.info("Message store already holds {} messages, not seeding it from {}", repository.size(), seedFile);
+      return;
+    }
+
+    try (var lines = Files.lines(seedFile, StandardCharsets.UTF_8)) {
+      lines.filter(StringUtils::hasText)
+        .forEach(repository::append);
+    } catch (final IOException e) {
+      throw new IllegalStateException("Could not read the message seed file " + seedFile, e);
+    }
+
+    log.info("Seeded the message store with {} messages from {}", repository.size(), seedFile);
+  }
+}
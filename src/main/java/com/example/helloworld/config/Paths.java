@@ -1,64 +1,150 @@
 package com.example.helloworld.config;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import org.springframework.lang.Nullable;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 // sealed means only internal classes/interfaces can implement this
+// The whole tree is built once, when the classes load. Each record carries its full path, so build() is a field read
+// and apiPath(), messagesPath() etc. hand out the same instances every time.
 public sealed interface Paths {
 
   String segment();
 
   @Nullable Paths root();
 
-  // constructs full URI path by combining the current segment with the root
+  // full path, resolved once when the record is created
+  String path();
+
   default String build() {
+    return path();
+  }
+
+  // constructs full URI path by combining the segment with the root's full path.
+  // Only runs while the tree is created. Interned since these strings are compared and hashed on every request
+  private static String resolve(@Nullable final Paths root, final String segment) {
     final var factory = new DefaultUriBuilderFactory();
-    final var rootPath = root();
-    final var prevPath = Objects.nonNull(rootPath)
-      ? rootPath.build()
+    final var prevPath = Objects.nonNull(root)
+      ? root.path()
       : "";
     final var uriBuilder = factory.uriString(prevPath);
 
-    return uriBuilder.path(segment())
+    return uriBuilder.path(segment)
       .build()
-      .getPath();
+      .getPath()
+      .intern();
   }
 
-  // for each segment, makes a new record for the sub-segments. easier to understand when read backwards
+  // for each segment, there is one record for the sub-segments. easier to understand when read backwards
   static ApiPaths apiPath() {
-    return new ApiPaths("/api", null);
+    return ApiPaths.API;
   }
 
-  record ApiPaths(String segment, Paths root) implements Paths {
+  // Every endpoint the api serves, in declaration order: the route table.
+  // Router and ReactiveRouter register a route and handler timer for each entry, and the security config works from
+  // this list, so an endpoint's path, access level and required permissions are only declared here.
+  // Its handler is looked up by endpoint in both routers, which refuse to start when one is missing
+  static List<ApiPaths.MessagesPaths.MessagesEndpoint> endpoints() {
+    return ApiPaths.MessagesPaths.ENDPOINTS;
+  }
+
+  // full paths of the endpoints that need an authenticated request
+  static List<String> authenticatedPaths() {
+    return ApiPaths.MessagesPaths.AUTHENTICATED_PATHS;
+  }
+
+  enum Access {
+    PUBLIC,
+    AUTHENTICATED
+  }
+
+  record ApiPaths(String segment, Paths root, String path) implements Paths {
+
+    private static final ApiPaths API = new ApiPaths("/api", null);
+
+    public ApiPaths(final String segment, @Nullable final Paths root) {
+      this(segment, root, Paths.resolve(root, segment));
+    }
 
     // api/messages
     public MessagesPaths messagesPath() {
-      return new MessagesPaths("/messages", Paths.apiPath());
+      return MessagesPaths.MESSAGES;
     }
 
-    public record MessagesPaths(String segment, Paths root) implements Paths {
+    public record MessagesPaths(String segment, Paths root, String path) implements Paths {
+
+      private static final MessagesPaths MESSAGES = new MessagesPaths("/messages", Paths.apiPath());
+
+      private static final MessagesEndpoint PUBLIC = new MessagesEndpoint("/public", Access.PUBLIC);
+
+      private static final MessagesEndpoint PROTECTED = new MessagesEndpoint("/protected", Access.AUTHENTICATED);
+
+      private static final MessagesEndpoint ADMIN = new MessagesEndpoint(
+        "/admin",
+        Access.AUTHENTICATED,
+        Permission.READ_ADMIN_MESSAGES
+      );
+
+      // stored messages, a page at a time
+      private static final MessagesEndpoint LIST = new MessagesEndpoint("/list", Access.AUTHENTICATED);
+
+      // every stored message in one streamed response
+      private static final MessagesEndpoint EXPORT = new MessagesEndpoint(
+        "/export",
+        Access.AUTHENTICATED,
+        Permission.EXPORT_MESSAGES
+      );
+
+      private static final List<MessagesEndpoint> ENDPOINTS = List.of(PUBLIC, PROTECTED, ADMIN, LIST, EXPORT);
+
+      private static final List<String> AUTHENTICATED_PATHS = ENDPOINTS.stream()
+        .filter(endpoint -> endpoint.access() == Access.AUTHENTICATED)
+        .map(Paths::path)
+        .toList();
+
+      public MessagesPaths(final String segment, final Paths root) {
+        this(segment, root, Paths.resolve(root, segment));
+      }
 
       // api/messages/public
       public MessagesEndpoint publicPath() {
-        return new MessagesEndpoint("/public");
+        return PUBLIC;
       }
 
       // api/messages/protected
       public MessagesEndpoint protectedPath() {
-        return new MessagesEndpoint("/protected");
+        return PROTECTED;
       }
 
       // api/messages/admin
       public MessagesEndpoint adminPath() {
-        return new MessagesEndpoint("/admin");
+        return ADMIN;
       }
 
-      public record MessagesEndpoint(String segment, Paths root) implements Paths {
+      // api/messages/list
+      public MessagesEndpoint listPath() {
+        return LIST;
+      }
+
+      // api/messages/export
+      public MessagesEndpoint exportPath() {
+        return EXPORT;
+      }
 
-        public MessagesEndpoint(final String segment) {
-          this(segment, Paths.apiPath().messagesPath());
+      // permissions are what the token must grant on top of being authenticated, see Permission
+      public record MessagesEndpoint(
+        String segment,
+        Paths root,
+        Access access,
+        Set<Permission> permissions,
+        String path
+      ) implements Paths {
+
+        public MessagesEndpoint(final String segment, final Access access, final Permission... permissions) {
+          this(segment, MESSAGES, access, Set.of(permissions), Paths.resolve(MESSAGES, segment));
         }
       }
     }
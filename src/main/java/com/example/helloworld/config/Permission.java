@@ -0,0 +1,54 @@
+package com.example.helloworld.config;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Permissions the Auth0 API can grant. With RBAC enabled and "Add Permissions in the Access Token" turned on,
+// Auth0 lists them in the token's permissions claim; they can also arrive as OAuth scopes.
+// Each one owns a bit, so a token's permissions fit in a long and checking them is a bit test.
+// Endpoints declare which of these they need in Paths.
+public enum Permission {
+  READ_ADMIN_MESSAGES("read:admin-messages"),
+  EXPORT_MESSAGES("export:messages");
+
+  // bit() shifts by the ordinal, a 65th permission would silently share a bit with the first
+  static {
+    if (values().length > Long.SIZE) {
+      throw new IllegalStateException("At most " + Long.SIZE + " permissions fit in a long, found " + values().length);
+    }
+  }
+
+  private static final Map<String, Permission> BY_NAME = Arrays.stream(values())
+    .collect(Collectors.toUnmodifiableMap(Permission::claimValue, Function.identity()));
+
+  private final String claimValue;
+
+  Permission(final String claimValue) {
+    this.claimValue = claimValue;
+  }
+
+  public String claimValue() {
+    return claimValue;
+  }
+
+  public long bit() {
+    return 1L << ordinal();
+  }
+
+  // null for permissions this API doesn't know about, those are simply ignored
+  public static Permission fromClaimValue(final String claimValue) {
+    return BY_NAME.get(claimValue);
+  }
+
+  public static long bits(final Iterable<Permission> permissions) {
+    var bits = 0L;
+
+    for (final var permission : permissions) {
+      bits |= permission.bit();
+    }
+
+    return bits;
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.helloworld.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.example.helloworld.config.ApiMetrics.ErrorOutcome;
+import com.example.helloworld.config.audit.AuditEntry;
+
+import reactor.core.publisher.Mono;
+
+// Reactive twin of GlobalErrorHandler, gives the reactive profile the same ErrorMessage bodies from ErrorBodies
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public record ReactiveErrorHandler(ErrorBodies bodies, ApiMetrics metrics) {
+
+  public Mono<ServerResponse> handleInternalError(final Throwable error, final ServerRequest request) {
+    recordError(request.exchange(), ErrorOutcome.INTERNAL, error.getMessage());
+    return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+      .contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(bodies.internal(error.getMessage()));
+  }
+
+  public Mono<ServerResponse> handleBadRequest(final Throwable error, final ServerRequest request) {
+    recordError(request.exchange(), ErrorOutcome.BAD_REQUEST, error.getMessage());
+    return ServerResponse.badRequest()
+      .contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(bodies.badRequest(error.getMessage()));
+  }
+
+  // Used as the resource server's ServerAuthenticationEntryPoint, which works on the raw exchange
+  public Mono<Void> handleAuthenticationError(
+    final ServerWebExchange exchange,
+    final AuthenticationException error
+  ) {
+    recordError(exchange, ErrorOutcome.UNAUTHENTICATED, error.getMessage());
+    return writeError(exchange, HttpStatus.UNAUTHORIZED, bodies.unauthenticated());
+  }
+
+  // Used as the resource server's ServerAccessDeniedHandler
+  public Mono<Void> handleAccessDenied(
+    final ServerWebExchange exchange,
+    final AccessDeniedException error
+  ) {
+    recordError(exchange, ErrorOutcome.FORBIDDEN, error.getMessage());
+    return writeError(exchange, HttpStatus.FORBIDDEN, bodies.forbidden());
+  }
+
+  // Used by ReactiveRateLimitFilter once a client has used up its bucket for the route
+  public Mono<Void> handleTooManyRequests(final ServerWebExchange exchange, final long retryAfterSeconds) {
+    metrics.recordError(ErrorOutcome.RATE_LIMITED);
+    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    return writeError(exchange, HttpStatus.TOO_MANY_REQUESTS, bodies.tooManyRequests());
+  }
+
+  // Used by ReactiveConcurrencyLimitFilter when the request's route group is at its limit
+  public Mono<Void> handleOverloaded(final ServerWebExchange exchange) {
+    metrics.recordError(ErrorOutcome.OVERLOADED);
+    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, GlobalErrorHandler.OVERLOADED_RETRY_AFTER);
+    return writeError(exchange, HttpStatus.SERVICE_UNAVAILABLE, bodies.overloaded());
+  }
+
+  // Same as GlobalErrorHandler: metrics, plus the audit entry the ReactiveAuditFilter put on the exchange
+  private void recordError(
+    final ServerWebExchange exchange,
+    final ErrorOutcome outcome,
+    @Nullable final String detail
+  ) {
+    metrics.recordError(outcome);
+    AuditEntry.recordOutcome(exchange, outcome, detail);
+  }
+
+  // The buffer wraps the shared array without copying it, nothing writes to it
+  private static Mono<Void> writeError(final ServerWebExchange exchange, final HttpStatus status, final byte[] body) {
+    final var response = exchange.getResponse();
+
+    response.setStatusCode(status);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    response.getHeaders().setContentLength(body.length);
+    return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.helloworld.config;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.example.helloworld.config.Paths.ApiPaths.MessagesPaths.MessagesEndpoint;
+import com.example.helloworld.handlers.ReactiveMessageHandler;
+import com.example.helloworld.services.InvalidPageRequestException;
+
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+// The real WebFlux Router-Handler setup, running on Netty. Active with the reactive profile
+// (application-reactive.yml switches Spring Boot to a reactive web application).
+// Same routes as Router, from the same Paths registry.
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Configuration
+public class ReactiveRouter {
+
+  @Bean
+  public RouterFunction<ServerResponse> reactiveApiRouter(
+    final ReactiveMessageHandler messageHandler,
+    final ReactiveErrorHandler errorHandler,
+    final ApiMetrics metrics
+  ) {
+    final var messages = Paths.apiPath().messagesPath();
+    final var handlers = Map.<MessagesEndpoint, HandlerFunction<ServerResponse>>of(
+      messages.publicPath(), messageHandler::getPublic,
+      messages.protectedPath(), messageHandler::getProtected,
+      messages.adminPath(), messageHandler::getAdmin,
+      messages.listPath(), messageHandler::list,
+      messages.exportPath(), messageHandler::export
+    );
+    final var routes = route();
+
+    for (final var endpoint : Paths.endpoints()) {
+      routes.GET(endpoint.build(), timed(metrics.handlerTimer(endpoint), Router.handlerFor(handlers, endpoint)));
+    }
+
+    return routes
+      .onError(Throwable.class, errorHandler::handleInternalError)
+      // registered last so it sits closest to the handlers and sees their exceptions before the catch-all above
+      .onError(InvalidPageRequestException.class, errorHandler::handleBadRequest)
+      .build();
+  }
+
+  // same handler timer as Router, stopped when the response Mono completes
+  private static HandlerFunction<ServerResponse> timed(
+    final Timer timer,
+    final HandlerFunction<ServerResponse> handler
+  ) {
+    return request -> Mono.defer(() -> {
+      final var started = System.nanoTime();
+
+      return handler.handle(request)
+        .doFinally(signal -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+    });
+  }
+}
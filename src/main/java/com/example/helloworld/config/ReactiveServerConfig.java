@@ -0,0 +1,48 @@
+package com.example.helloworld.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.RequiredArgsConstructor;
+
+// The reactive profile's server. starter-web puts Tomcat on the classpath next to Reactor Netty, and Spring Boot
+// tries its embedded Tomcat before Netty, so without this bean the reactive stack would run on Tomcat.
+// Declaring the factory here makes Boot skip both of its own. server.* settings and TransportConfig still apply,
+// they customize whichever factory bean there is.
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Configuration
+@RequiredArgsConstructor
+public class ReactiveServerConfig {
+
+  private final ApplicationProperties applicationProps;
+
+  private final ServerProperties serverProps;
+
+  // same as Boot's own Netty factory bean
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+    final ObjectProvider<NettyServerCustomizer> serverCustomizers
+  ) {
+    final var factory = new NettyReactiveWebServerFactory();
+
+    serverCustomizers.orderedStream().forEach(factory::addServerCustomizers);
+    return factory;
+  }
+
+  // Boot turns on Netty's forwarded support for the native strategy before the customizers run,
+  // this swaps its handler for one that only believes application.trusted-proxies
+  @Bean
+  public NettyServerCustomizer trustedForwardedHeaders() {
+    final var handler = new ForwardedHeaderHandler(applicationProps.trustedProxies());
+
+    return server -> serverProps.getForwardHeadersStrategy() == ServerProperties.ForwardHeadersStrategy.NATIVE
+      ? server.forwarded(handler)
+      : server;
+  }
+}
@@ -2,13 +2,25 @@ package com.example.helloworld.config;
 
 import static org.springframework.web.servlet.function.RouterFunctions.route;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.HandlerFunction;
 import org.springframework.web.servlet.function.RouterFunction;
 import org.springframework.web.servlet.function.ServerResponse;
 
+import com.example.helloworld.config.Paths.ApiPaths.MessagesPaths.MessagesEndpoint;
 import com.example.helloworld.handlers.MessageHandler;
+import com.example.helloworld.services.InvalidPageRequestException;
+
+import io.micrometer.core.instrument.Timer;
 
+@ConditionalOnWebApplication(type = Type.SERVLET) // ReactiveRouter serves the reactive profile
 @Configuration // spring scans this class for beans
 public class Router {
 
@@ -20,26 +32,55 @@ public class Router {
   // Spring WebFlux version of RequestMapping
   public RouterFunction<ServerResponse> apiRouter(
     final MessageHandler messageHandler,
-    final GlobalErrorHandler globalErrorHandler
+    final GlobalErrorHandler globalErrorHandler,
+    final ApiMetrics metrics
   ) {
-    final var api = Paths.apiPath();
-    final var messages = api.messagesPath();
-
-    return route()
-            // base path /api
-      .path(api.segment(), () ->
-        route()
-                // /api/messages
-          .path(messages.segment(), () ->
-            route()
-              .GET(messages.publicPath().segment(), messageHandler::getPublic)
-              .GET(messages.protectedPath().segment(), messageHandler::getProtected)
-              .GET(messages.adminPath().segment(), messageHandler::getAdmin)
-              .build()
-          )
-          .build()
-      )
+    final var messages = Paths.apiPath().messagesPath();
+    final var handlers = Map.<MessagesEndpoint, HandlerFunction<ServerResponse>>of(
+      messages.publicPath(), messageHandler::getPublic,
+      messages.protectedPath(), messageHandler::getProtected,
+      messages.adminPath(), messageHandler::getAdmin,
+      messages.listPath(), messageHandler::list,
+      messages.exportPath(), messageHandler::export
+    );
+    final var routes = route();
+
+    // full paths are resolved once in Paths, so each route is registered with its whole path
+    for (final var endpoint : Paths.endpoints()) {
+      routes.GET(endpoint.build(), timed(metrics.handlerTimer(endpoint), handlerFor(handlers, endpoint)));
+    }
+
+    return routes
       .onError(Throwable.class, globalErrorHandler::handleInternalError)
+      // registered last so it sits closest to the handlers and sees their exceptions before the catch-all above
+      .onError(InvalidPageRequestException.class, globalErrorHandler::handleBadRequest)
       .build();
   }
+
+  // Also used by ReactiveRouter. An endpoint in Paths without a handler stops the app from starting
+  static <H> H handlerFor(final Map<MessagesEndpoint, H> handlers, final MessagesEndpoint endpoint) {
+    final var handler = handlers.get(endpoint);
+
+    if (Objects.isNull(handler)) {
+      throw new IllegalStateException("No handler for " + endpoint.build() + ", declared in Paths.endpoints()");
+    }
+
+    return handler;
+  }
+
+  // records how long the handler itself takes, failures included
+  private static HandlerFunction<ServerResponse> timed(
+    final Timer timer,
+    final HandlerFunction<ServerResponse> handler
+  ) {
+    return request -> {
+      final var started = System.nanoTime();
+
+      try {
+        return handler.handle(request);
+      } finally {
+        timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+      }
+    };
+  }
 }
@@ -0,0 +1,30 @@
+package com.example.helloworld.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+import com.example.helloworld.config.audit.AuditLog;
+import com.example.helloworld.config.security.RevocationFeed;
+
+// Beans still created at startup under the fast-start profile's lazy initialization (application-fast-start.yml):
+//  - the revocation feed and the audit log do their work by themselves, nothing would ever ask for them
+//  - the security filter chains, which build the JWT decoders, so the issuer's keys load in the background while
+//    the app starts rather than on the first authenticated request
+// Everything else (actuator endpoints, metrics binders, the message store...) is created when first needed.
+@Configuration
+public class StartupConfig {
+
+  // static, so it's there before any other bean is defined
+  @Bean
+  public static LazyInitializationExcludeFilter eagerBeans() {
+    return LazyInitializationExcludeFilter.forBeanTypes(
+      RevocationFeed.class,
+      AuditLog.class,
+      SecurityFilterChain.class,
+      SecurityWebFilterChain.class
+    );
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.helloworld.config;
+
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.helloworld.config.ApplicationProperties.TransportMode;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import reactor.netty.http.HttpProtocol;
+
+// Protocol and connection settings of the embedded server, from application.transport.
+// Both customizers are unordered, so they run after Spring Boot's own (order 0) and their connector settings
+// win over the server.tomcat.* and server.netty.* defaults. server.http2.enabled stays off, h2c is set up here.
+@Log4j2
+@Configuration
+@RequiredArgsConstructor
+public class TransportConfig {
+
+  private final ApplicationProperties applicationProps;
+
+  // In h2c mode HTTP/2 is added to the HTTP/1.1 connector as an upgrade protocol. Tomcat then takes both
+  // an Upgrade: h2c request and a connection that starts with the HTTP/2 preface (prior knowledge)
+  @Bean
+  @ConditionalOnWebApplication(type = Type.SERVLET)
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatTransport() {
+    final var transport = applicationProps.transport();
+
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      if (connector.getProtocolHandler() instanceof final AbstractHttp11Protocol<?> http11) {
+        http11.setKeepAliveTimeout((int) transport.keepAliveTimeout().toMillis());
+        http11.setMaxKeepAliveRequests(transport.maxKeepAliveRequests());
+        http11.setMaxConnections(transport.maxConnections());
+        http11.setAcceptCount(transport.acceptCount());
+      }
+
+      if (transport.mode() == TransportMode.H2C) {
+        final var http2 = new Http2Protocol();
+
+        http2.setMaxConcurrentStreams(transport.maxConcurrentStreams());
+        http2.setKeepAliveTimeout(transport.keepAliveTimeout().toMillis());
+        connector.addUpgradeProtocol(http2);
+      }
+
+      log.info("Tomcat serves {}", transport.mode());
+    });
+  }
+
+  // Reactor Netty takes h2c the same two ways when both protocols are listed
+  @Bean
+  @ConditionalOnWebApplication(type = Type.REACTIVE)
+  public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyTransport() {
+    final var transport = applicationProps.transport();
+    final var protocols = transport.mode() == TransportMode.H2C
+      ? new HttpProtocol[] {HttpProtocol.H2C, HttpProtocol.HTTP11}
+      : new HttpProtocol[] {HttpProtocol.HTTP11};
+
+    return factory -> {
+      factory.addServerCustomizers(server ->
+        server.protocol(protocols)
+          .idleTimeout(transport.keepAliveTimeout())
+          .maxKeepAliveRequests(transport.maxKeepAliveRequests())
+          .http2Settings(settings -> settings.maxConcurrentStreams(transport.maxConcurrentStreams()))
+      );
+      log.info("Netty serves {}", transport.mode());
+    };
+  }
+}
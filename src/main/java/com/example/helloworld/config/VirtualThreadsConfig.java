@@ -0,0 +1,61 @@
+package com.example.helloworld.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+
+import lombok.extern.log4j.Log4j2;
+
+// Opt-in (application.virtual-threads: true) mode where Tomcat runs every request, and with it the whole
+// filter chain including Spring Security, on its own virtual thread instead of a thread from the fixed pool.
+// A request blocked on a JWKS fetch then parks a cheap virtual thread rather than holding one of 200 pool threads.
+// Virtual threads need a Java 21+ runtime. The app still compiles for 17, so the executor is looked up reflectively
+// and startup fails with a clear message on older runtimes.
+//
+// SecurityContextHolder keeps its default thread-local strategy: a request stays on one virtual thread from the
+// security filter to the handler, so the context is set and cleared on the same thread like before.
+// Work handed off to the async executor gets the caller's context copied over explicitly.
+@Log4j2
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Configuration
+@ConditionalOnProperty(prefix = "application", name = "virtual-threads", havingValue = "true")
+public class VirtualThreadsConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+    return protocolHandler -> {
+      protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+      log.info("Tomcat requests run on virtual threads");
+    };
+  }
+
+  // Used by Spring MVC for async request processing. Replaces Boot's default pool of platform threads
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new DelegatingSecurityContextAsyncTaskExecutor(new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor()));
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final NoSuchMethodException e) {
+      throw new IllegalStateException(
+        "application.virtual-threads needs a Java 21+ runtime, this is Java " + Runtime.version(),
+        e
+      );
+    } catch (final IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Could not create a virtual thread executor", e);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.helloworld.config.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+// The audit log is shared by the servlet and the reactive stacks. Their security configs only add the audit filter
+// when this bean exists, so with auditing off there's nothing in the request path at all
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  prefix = "application.audit",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class AuditConfig {
+
+  private final ApplicationProperties applicationProps;
+
+  private final ObjectMapper mapper;
+
+  private final MeterRegistry meterRegistry;
+
+  // Spring calls close() on shutdown, which writes out the records still queued
+  @Bean
+  public AuditLog auditLog() {
+    final var auditLog = new AuditLog(applicationProps.audit(), mapper);
+
+    Gauge.builder("audit.queue.depth", auditLog, AuditLog::queueDepth)
+      .description("Audit records waiting for the writer thread")
+      .register(meterRegistry);
+    FunctionCounter.builder("audit.records.written", auditLog, AuditLog::written)
+      .description("Audit records written to the audit file")
+      .register(meterRegistry);
+    FunctionCounter.builder("audit.records.dropped", auditLog, AuditLog::dropped)
+      .description("Audit records dropped because the queue was full or the file couldn't be written")
+      .register(meterRegistry);
+    return auditLog.start();
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.helloworld.config.audit;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletRequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.example.helloworld.config.ApiMetrics.ErrorOutcome;
+
+// A request being audited, kept in a request (or exchange) attribute by the audit filters.
+// Security fills in the subject and the error handlers the outcome as the request goes through them,
+// the filter turns it into an AuditRecord once the response is done.
+public final class AuditEntry {
+
+  public static final String ATTRIBUTE = AuditEntry.class.getName();
+
+  private static final String OK = "ok";
+
+  private final long started;
+
+  // on the reactive stack these may be set on another thread than the one building the record
+  @Nullable
+  private volatile String subject;
+
+  @Nullable
+  private volatile ErrorOutcome outcome;
+
+  @Nullable
+  private volatile String detail;
+
+  public AuditEntry(final long started) {
+    this.started = started;
+  }
+
+  public void subject(@Nullable final String subject) {
+    this.subject = subject;
+  }
+
+  public void outcome(final ErrorOutcome outcome, @Nullable final String detail) {
+    this.outcome = outcome;
+    this.detail = detail;
+  }
+
+  // Responses that didn't come from an error handler (CORS rejections, exceptions that escaped the router)
+  // get their outcome from the status
+  public AuditRecord toRecord(final String method, final String route, final int status) {
+    final var latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+    final var errorOutcome = Objects.nonNull(outcome) ? outcome : outcomeOf(status);
+
+    return new AuditRecord(
+      Instant.now(),
+      subject,
+      method,
+      route,
+      status,
+      Objects.nonNull(errorOutcome) ? errorOutcome.name().toLowerCase(Locale.ROOT) : OK,
+      detail,
+      latency
+    );
+  }
+
+  // Called by the error handlers, does nothing for requests the audit filters don't cover
+
+  public static void recordOutcome(
+    final ServletRequest request,
+    final ErrorOutcome outcome,
+    @Nullable final String detail
+  ) {
+    if (request.getAttribute(ATTRIBUTE) instanceof final AuditEntry entry) {
+      entry.outcome(outcome, detail);
+    }
+  }
+
+  public static void recordOutcome(
+    final ServerWebExchange exchange,
+    final ErrorOutcome outcome,
+    @Nullable final String detail
+  ) {
+    if (exchange.getAttribute(ATTRIBUTE) instanceof final AuditEntry entry) {
+      entry.outcome(outcome, detail);
+    }
+  }
+
+  @Nullable
+  private static ErrorOutcome outcomeOf(final int status) {
+    if (status < HttpStatus.BAD_REQUEST.value()) {
+      return null;
+    }
+
+    if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+      return ErrorOutcome.INTERNAL;
+    }
+
+    return switch (status) {
+      case 401 -> ErrorOutcome.UNAUTHENTICATED;
+      case 403 -> ErrorOutcome.FORBIDDEN;
+      case 404 -> ErrorOutcome.NOT_FOUND;
+      case 429 -> ErrorOutcome.RATE_LIMITED;
+      default -> ErrorOutcome.BAD_REQUEST;
+    };
+  }
+}
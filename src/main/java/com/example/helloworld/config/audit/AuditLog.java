@@ -0,0 +1,285 @@
+package com.example.helloworld.config.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.lang.Nullable;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ApplicationProperties.AuditOverflow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.log4j.Log4j2;
+
+// The audit trail of the authenticated endpoints, written off the request threads.
+// Requests only put an AuditRecord on a bounded lock-free queue (AuditQueue). A single "audit-writer" thread takes
+// up to batchSize records at a time, writes them as newline delimited JSON and flushes once per batch.
+// The file is rotated once it reaches maxFileSize: audit.ndjson becomes audit.ndjson.1, .1 becomes .2 and so on,
+// keeping maxFiles old files. Serializing happens on the writer thread too, requests never touch Jackson or the disk.
+// When the queue is full, DROP drops the record right away, WAIT lets the request wait up to maximumWait for room
+// first. Either way a record that doesn't fit is counted in dropped() rather than slowing requests down any further.
+@Log4j2
+public final class AuditLog implements AutoCloseable {
+
+  // how long the writer sleeps when the queue is empty, records wait at most about this long to be written
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  // between retries of a request waiting for room under the WAIT policy
+  private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final AuditQueue<AuditRecord> queue;
+
+  private final ObjectWriter writer;
+
+  private final Path file;
+
+  private final int batchSize;
+
+  private final long maxFileBytes;
+
+  private final int maxFiles;
+
+  private final AuditOverflow overflow;
+
+  private final long maximumWaitNanos;
+
+  private final Thread thread;
+
+  private final LongAdder dropped = new LongAdder();
+
+  private final LongAdder written = new LongAdder();
+
+  private volatile boolean running = true;
+
+  // only touched by the writer thread, null while the file can't be opened
+  @Nullable
+  private OutputStream out;
+
+  private long fileSize;
+
+  // whether the last open() failed, so a broken disk is logged once rather than on every batch
+  private boolean failing;
+
+  public AuditLog(final ApplicationProperties.Audit auditProps, final ObjectMapper mapper) {
+    if (auditProps.batchSize() <= 0 || auditProps.maxFiles() <= 0) {
+      throw new IllegalArgumentException("Audit batch size and max files must be positive");
+    }
+
+    this.queue = new AuditQueue<>(auditProps.queueCapacity());
+    this.writer = mapper.writerFor(AuditRecord.class);
+    this.file = Objects.requireNonNull(auditProps.file(), "file");
+    this.batchSize = auditProps.batchSize();
+    this.maxFileBytes = auditProps.maxFileSize().toBytes();
+    this.maxFiles = auditProps.maxFiles();
+    this.overflow = auditProps.overflow();
+    this.maximumWaitNanos = auditProps.maximumWait().toNanos();
+    this.thread = new Thread(this::run, "audit-writer");
+    this.thread.setDaemon(true);
+  }
+
+  public AuditLog start() {
+    thread.start();
+    return this;
+  }
+
+  // From request threads that may wait: applies the overflow policy
+  public void submit(final AuditRecord record) {
+    if (overflow != AuditOverflow.WAIT || !running) {
+      offer(record);
+      return;
+    }
+
+    final var deadline = System.nanoTime() + maximumWaitNanos;
+
+    while (!queue.offer(record)) {
+      if (!running || System.nanoTime() - deadline >= 0) {
+        dropped.increment();
+        return;
+      }
+
+      LockSupport.parkNanos(WAIT_PARK_NANOS);
+    }
+  }
+
+  // Never waits, for event loop threads. A record that doesn't fit is dropped
+  public boolean offer(final AuditRecord record) {
+    if (running && queue.offer(record)) {
+      return true;
+    }
+
+    dropped.increment();
+    return false;
+  }
+
+  // Stops taking records, writes out the ones already queued and closes the file. Spring calls it on shutdown.
+  // An interrupted caller stops waiting for the writer, which still finishes on its own
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(thread);
+
+    try {
+      thread.join(CLOSE_TIMEOUT.toMillis());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public double queueDepth() {
+    return queue.size();
+  }
+
+  public double dropped() {
+    return dropped.sum();
+  }
+
+  public double written() {
+    return written.sum();
+  }
+
+  private void run() {
+    log.info("Writing the audit trail to {}", file);
+
+    while (running || queue.size() > 0) {
+      if (drain() == 0) {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+    }
+
+    closeFile();
+  }
+
+  // One batch: written in a single pass through the buffer and flushed once
+  private int drain() {
+    if (queue.size() == 0) {
+      return 0;
+    }
+
+    if (Objects.isNull(out) && !open()) {
+      // nowhere to write, the batch is dropped so requests don't back up behind a broken disk
+      return discard();
+    }
+
+    var count = 0;
+
+    try {
+      for (; count < batchSize; count++) {
+        final var record = queue.poll();
+
+        if (Objects.isNull(record)) {
+          break;
+        }
+
+        final var line = writer.writeValueAsBytes(record);
+
+        out.write(line);
+        out.write('\n');
+        fileSize += line.length + 1;
+      }
+
+      if (count > 0) {
+        out.flush();
+        written.add(count);
+      }
+    } catch (final IOException e) {
+      log.warn("Writing the audit trail to {} failed, {} records dropped: {}", file, count, e.getMessage());
+      dropped.add(count);
+      closeFile();
+      return count;
+    }
+
+    if (fileSize >= maxFileBytes) {
+      try {
+        rotate();
+      } catch (final IOException e) {
+        // the next batch reopens the same file and tries again
+        log.warn("Rotating the audit trail {} failed: {}", file, e.getMessage());
+      }
+    }
+
+    return count;
+  }
+
+  private int discard() {
+    var count = 0;
+
+    while (count < batchSize && Objects.nonNull(queue.poll())) {
+      count++;
+    }
+
+    dropped.add(count);
+    return count;
+  }
+
+  private boolean open() {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      out = new BufferedOutputStream(
+        Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+        BUFFER_SIZE
+      );
+      fileSize = Files.size(file);
+
+      if (failing) {
+        log.info("Writing the audit trail to {} again", file);
+        failing = false;
+      }
+
+      return true;
+    } catch (final IOException e) {
+      if (!failing) {
+        log.warn("Could not open the audit trail {}, dropping records until it can be: {}", file, e.getMessage());
+        failing = true;
+      }
+
+      return false;
+    }
+  }
+
+  private void rotate() throws IOException {
+    closeFile();
+
+    for (var i = maxFiles - 1; i >= 1; i--) {
+      final var older = rotated(i);
+
+      if (Files.exists(older)) {
+        Files.move(older, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private Path rotated(final int generation) {
+    return file.resolveSibling(file.getFileName() + "." + generation);
+  }
+
+  private void closeFile() {
+    if (Objects.isNull(out)) {
+      return;
+    }
+
+    try {
+      out.close();
+    } catch (final IOException e) {
+      log.warn("Closing the audit trail {} failed: {}", file, e.getMessage());
+    }
+
+    out = null;
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.helloworld.config.audit;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.lang.Nullable;
+
+// Bounded ring of records, any number of request threads putting in and the writer thread taking out.
+// No locks: a producer claims a slot with a single CAS on tail and stores into it, the queue is full
+// when tail is a whole ring ahead of head. Only the consumer moves head, so poll() needs no CAS at all.
+// A claimed slot stays null until its producer has stored into it, poll() treats that as empty for now.
+final class AuditQueue<E> {
+
+  private final AtomicReferenceArray<E> slots;
+
+  private final int mask;
+
+  private final AtomicLong head = new AtomicLong();
+
+  private final AtomicLong tail = new AtomicLong();
+
+  // rounded up to a power of two, so a position maps to its slot with a mask
+  AuditQueue(final int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Audit queue capacity must be between 1 and 2^30, was " + capacity);
+    }
+
+    final var size = Integer.highestOneBit(capacity - 1) << 1;
+
+    this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+    this.mask = slots.length() - 1;
+  }
+
+  // false when the queue is full, never waits
+  boolean offer(final E element) {
+    Objects.requireNonNull(element, "element");
+
+    while (true) {
+      final var position = tail.get();
+
+      if (position - head.get() >= slots.length()) {
+        return false;
+      }
+
+      if (tail.compareAndSet(position, position + 1)) {
+        // head is past position - capacity, so the consumer has already emptied this slot
+        slots.lazySet((int) (position & mask), element);
+        return true;
+      }
+    }
+  }
+
+  // Only called from the one consumer thread
+  @Nullable
+  E poll() {
+    final var position = head.get();
+    final var index = (int) (position & mask);
+    final var element = slots.get(index);
+
+    if (Objects.isNull(element)) {
+      return null;
+    }
+
+    // emptied before head moves on, so a producer that sees the new head finds the slot free
+    slots.lazySet(index, null);
+    head.lazySet(position + 1);
+    return element;
+  }
+
+  // Claimed slots not taken out yet, approximate while producers are adding
+  int size() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+}
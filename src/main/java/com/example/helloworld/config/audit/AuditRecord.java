@@ -0,0 +1,20 @@
+package com.example.helloworld.config.audit;
+
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+
+// One line of the audit file. outcome is "ok" or one of ApiMetrics.ErrorOutcome in lower case, detail is
+// the error handler's reason for an error outcome. subject is the token's sub claim, null when there was no valid token
+public record AuditRecord(
+  Instant time,
+  @Nullable String subject,
+  String method,
+  String route,
+  int status,
+  String outcome,
+  @Nullable String detail,
+  long latencyMicros
+) {
+
+}
@@ -0,0 +1,47 @@
+package com.example.helloworld.config.security;
+
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+// Custom Validator used next to the issuer validator by both the servlet and the reactive decoder.
+// Checks that the JWT's audience matches one of the expected ones (the audience from application.yml,
+// or the audiences of a trusted issuer)
+public record AudienceValidator(Set<String> audiences) implements OAuth2TokenValidator<Jwt> {
+
+  // Validators need custom errors to give. Would later be thrown in SecurityFilterChain
+  private static final OAuth2Error AUDIENCE_ERROR = new OAuth2Error(
+    OAuth2ErrorCodes.INVALID_TOKEN,
+    "The token was not issued for the given audience",
+    "https://datatracker.ietf.org/doc/html/rfc6750#section-3.1"
+  );
+
+  public AudienceValidator {
+    audiences = Set.copyOf(audiences);
+  }
+
+  public AudienceValidator(final String audience) {
+    this(Set.of(audience));
+  }
+
+  @Override
+  public OAuth2TokenValidatorResult validate(final Jwt token) {
+    // audience got injected from .env to application.yml and injected into ApplicationProperties by spring
+    final var tokenAudiences = token.getAudience();
+
+    if (Objects.nonNull(tokenAudiences)) {
+      for (final var audience : tokenAudiences) {
+        if (audiences.contains(audience)) {
+          return OAuth2TokenValidatorResult.success();
+        }
+      }
+    }
+
+    return OAuth2TokenValidatorResult.failure(AUDIENCE_ERROR);
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.example.helloworld.config.audit.AuditEntry;
+import com.example.helloworld.config.audit.AuditLog;
+
+// Added by SecurityConfig in front of the bearer token filter, so it only sees the authenticated paths and its
+// latency covers authentication, authorization, the rate limiter and the handler.
+// The error handlers fill in their outcome on the AuditEntry, the record is queued once the chain returns.
+final class AuditFilter implements Filter {
+
+  private final AuditLog auditLog;
+
+  AuditFilter(final AuditLog auditLog) {
+    this.auditLog = auditLog;
+  }
+
+  @Override
+  public void doFilter(
+    final ServletRequest request,
+    final ServletResponse response,
+    final FilterChain chain
+  ) throws IOException, ServletException {
+    if (!(request instanceof final HttpServletRequest httpRequest)
+      || !(response instanceof final HttpServletResponse httpResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final var entry = new AuditEntry(System.nanoTime());
+    var failed = true;
+
+    httpRequest.setAttribute(AuditEntry.ATTRIBUTE, entry);
+
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      // the security context is only cleared once the request leaves Spring Security's chain, after this
+      final var authentication = SecurityContextHolder.getContext().getAuthentication();
+
+      if (Objects.nonNull(authentication) && authentication.getPrincipal() instanceof final Jwt jwt) {
+        entry.subject(jwt.getSubject());
+      }
+
+      auditLog.submit(entry.toRecord(
+        httpRequest.getMethod(),
+        PathPrefixRequestMatcher.pathWithinApplication(httpRequest),
+        failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus()
+      ));
+    }
+  }
+}
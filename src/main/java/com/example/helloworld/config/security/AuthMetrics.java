@@ -0,0 +1,178 @@
+package com.example.helloworld.config.security;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Meters for the token path: decode latency, why tokens are rejected, JWKS fetches and how old the keys are.
+// Every meter is registered up front with a fixed set of tags, so recording is a lookup-free call on a field
+// and nothing about the token (subject, kid, ...) ever ends up in a tag.
+public final class AuthMetrics {
+
+  public enum FailureReason {
+    ISSUER,
+    AUDIENCE,
+    EXPIRY,
+    REVOKED,
+    SIGNATURE,
+    MALFORMED,
+    KEY_SOURCE
+  }
+
+  private final MeterRegistry registry;
+
+  private final Timer decodeSuccess;
+
+  private final Timer decodeFailure;
+
+  private final Timer jwksFetchSuccess;
+
+  private final Timer jwksFetchFailure;
+
+  private final Map<FailureReason, Counter> failures = new EnumMap<>(FailureReason.class);
+
+  public AuthMetrics(final MeterRegistry registry) {
+    this.registry = registry;
+    this.decodeSuccess = decodeTimer("success");
+    this.decodeFailure = decodeTimer("failure");
+    this.jwksFetchSuccess = jwksFetchTimer("success");
+    this.jwksFetchFailure = jwksFetchTimer("failure");
+
+    for (final var reason : FailureReason.values()) {
+      failures.put(reason, Counter.builder("auth.jwt.validation.failures")
+        .description("Rejected tokens by reason")
+        .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+        .register(registry));
+    }
+  }
+
+  // Signature check and validation of tokens that weren't in the cache.
+  // Validator failures are counted by the validators themselves, see counting()
+  public Jwt decode(final JwtDecoder decoder, final String token) {
+    final var started = System.nanoTime();
+
+    try {
+      final var jwt = decoder.decode(token);
+
+      recordDecode(started);
+      return jwt;
+    } catch (final JwtException e) {
+      recordDecodeFailure(started, e);
+      throw e;
+    }
+  }
+
+  public void recordDecode(final long startedNanos) {
+    decodeSuccess.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordDecodeFailure(final long startedNanos, final Throwable error) {
+    decodeFailure.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+
+    // NimbusJwtDecoder wraps parse errors in BadJwtException with the ParseException as cause,
+    // and signature or key selection errors in BadJwtException with the BadJOSEException as cause.
+    // A plain JwtException means the keys couldn't be retrieved. Untrusted issuers are rejected before any of that.
+    if (error instanceof JwtValidationException) {
+      return;
+    }
+
+    if (error instanceof IssuerDecoders.UntrustedIssuerException) {
+      failures.get(FailureReason.ISSUER).increment();
+    } else if (error instanceof BadJwtException) {
+      failures.get(error.getCause() instanceof ParseException ? FailureReason.MALFORMED : FailureReason.SIGNATURE)
+        .increment();
+    } else {
+      failures.get(FailureReason.KEY_SOURCE).increment();
+    }
+  }
+
+  // Wraps a validator so each failure is counted under its reason
+  public OAuth2TokenValidator<Jwt> counting(final FailureReason reason, final OAuth2TokenValidator<Jwt> validator) {
+    final var counter = failures.get(reason);
+
+    return jwt -> {
+      final var result = validator.validate(jwt);
+
+      if (result.hasErrors()) {
+        counter.increment();
+      }
+
+      return result;
+    };
+  }
+
+  public void recordJwksFetch(final long startedNanos, final boolean succeeded) {
+    (succeeded ? jwksFetchSuccess : jwksFetchFailure).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  // Seconds since the keys were last fetched successfully. Keeps growing while the issuer is unreachable.
+  // Tagged with the JWK set's host since each trusted issuer has a key set of its own.
+  // Gauges only hold their state weakly: the refresher itself is the state, not a method reference to it,
+  // so the gauge reads it for as long as the refresher is in use instead of going NaN after the next GC
+  public Gauge bindJwksStaleness(final String host, final JwkSetRefresher refresher) {
+    return Gauge.builder("auth.jwks.staleness", refresher,
+        keys -> Duration.between(keys.lastSuccessfulRefresh(), Instant.now()).toMillis() / 1000.0)
+      .description("Time since the JWK set was last refreshed successfully")
+      .tag("host", host)
+      .baseUnit("seconds")
+      .register(registry);
+  }
+
+  // for key sets that are closed, so the gauge doesn't keep them alive
+  public void unbind(final Meter meter) {
+    registry.remove(meter);
+  }
+
+  public void bindRevocations(final TokenRevocations revocations) {
+    Gauge.builder("auth.jwt.revocations", revocations, TokenRevocations::size)
+      .description("Revoked token ids currently on the denylist")
+      .register(registry);
+  }
+
+  // The cache already keeps its own counters, these just read them when scraped
+  public void bindJwtCache(final CachingJwtDecoder cache) {
+    FunctionCounter.builder("auth.jwt.cache.requests", cache, CachingJwtDecoder::hitCount)
+      .tag("result", "hit")
+      .register(registry);
+    FunctionCounter.builder("auth.jwt.cache.requests", cache, CachingJwtDecoder::missCount)
+      .tag("result", "miss")
+      .register(registry);
+    FunctionCounter.builder("auth.jwt.cache.evictions", cache, CachingJwtDecoder::evictionCount)
+      .register(registry);
+    Gauge.builder("auth.jwt.cache.size", cache, CachingJwtDecoder::size)
+      .register(registry);
+  }
+
+  private Timer decodeTimer(final String outcome) {
+    return Timer.builder("auth.jwt.decode")
+      .description("Signature verification and validation of tokens missing from the cache")
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+
+  private Timer jwksFetchTimer(final String outcome) {
+    return Timer.builder("auth.jwks.fetch")
+      .description("Fetches of the issuer's JWK set")
+      .tag("outcome", outcome)
+      .register(registry);
+  }
+}
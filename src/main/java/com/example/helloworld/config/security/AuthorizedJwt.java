@@ -0,0 +1,22 @@
+package com.example.helloworld.config.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+// A decoded Jwt that also carries the permissions it grants, parsed once when the token is decoded.
+// The decoders wrap their result in this, so the permissions are cached along with the token in CachingJwtDecoder
+// and authorizing a request is a bit test on them.
+public final class AuthorizedJwt extends Jwt {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient Permissions permissions;
+
+  public AuthorizedJwt(final Jwt jwt) {
+    super(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getHeaders(), jwt.getClaims());
+    this.permissions = Permissions.from(jwt);
+  }
+
+  public Permissions permissions() {
+    return permissions;
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.helloworld.config.security;
+
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+// Wraps the real decoder (signature check + validators) and remembers tokens that already passed.
+// SPA clients send the same bearer token over and over until it expires, so after the first request
+// a token costs a SHA-256 digest and a map lookup instead of an RS256 verification.
+// Only successfully decoded tokens are cached, failures always go through the delegate again.
+// A hit is checked against revoked first, since cached tokens skip the delegate's validators: a token revoked
+// after it was cached, or while it was being verified, goes back through the delegate, which rejects it.
+public final class CachingJwtDecoder implements JwtDecoder {
+
+  // fraction of maximumSize the cache is trimmed down to once it is full, so trimming isn't done on every insert
+  private static final double TRIM_RATIO = 0.9;
+
+  private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  });
+
+  private final JwtDecoder delegate;
+
+  private final int maximumSize;
+
+  private final Duration maximumTtl;
+
+  private final Predicate<Jwt> revoked;
+
+  private final Clock clock;
+
+  // key is the digest of the raw token, so the cache never holds bearer tokens in the clear
+  private final ConcurrentHashMap<String, CachedJwt> cache = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  public CachingJwtDecoder(final JwtDecoder delegate, final int maximumSize, final Duration maximumTtl) {
+    this(delegate, maximumSize, maximumTtl, jwt -> false);
+  }
+
+  public CachingJwtDecoder(
+    final JwtDecoder delegate,
+    final int maximumSize,
+    final Duration maximumTtl,
+    final Predicate<Jwt> revoked
+  ) {
+    this(delegate, maximumSize, maximumTtl, revoked, Clock.systemUTC());
+  }
+
+  public CachingJwtDecoder(
+    final JwtDecoder delegate,
+    final int maximumSize,
+    final Duration maximumTtl,
+    final Predicate<Jwt> revoked,
+    final Clock clock
+  ) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("maximumSize must be at least 1");
+    }
+
+    if (maximumTtl.isNegative() || maximumTtl.isZero()) {
+      throw new IllegalArgumentException("maximumTtl must be positive");
+    }
+
+    this.delegate = Objects.requireNonNull(delegate, "delegate");
+    this.maximumSize = maximumSize;
+    this.maximumTtl = maximumTtl;
+    this.revoked = Objects.requireNonNull(revoked, "revoked");
+    this.clock = Objects.requireNonNull(clock, "clock");
+  }
+
+  @Override
+  public Jwt decode(final String token) throws JwtException {
+    final var key = digest(token);
+    final var now = clock.instant();
+    final var cached = cache.get(key);
+
+    if (Objects.nonNull(cached)) {
+      final var jwt = cached.get(now);
+
+      if (Objects.nonNull(jwt) && !revoked.test(jwt)) {
+        hits.increment();
+        return jwt;
+      }
+
+      // expired, revoked, or collected by the GC under memory pressure
+      cache.remove(key, cached);
+    }
+
+    misses.increment();
+
+    final var jwt = delegate.decode(token);
+
+    store(key, jwt, now);
+    return jwt;
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public void invalidateAll() {
+    cache.clear();
+  }
+
+  private void store(final String key, final Jwt jwt, final Instant now) {
+    final var expiresAt = expiresAt(jwt, now);
+
+    // nothing to gain from caching a token that is about to expire
+    if (!now.isBefore(expiresAt)) {
+      return;
+    }
+
+    if (cache.size() >= maximumSize) {
+      trim(now);
+    }
+
+    cache.put(key, new CachedJwt(new SoftReference<>(jwt), expiresAt));
+  }
+
+  // an entry never outlives the token's exp claim, and never stays longer than maximumTtl
+  private Instant expiresAt(final Jwt jwt, final Instant now) {
+    final var ttlLimit = now.plus(maximumTtl);
+    final var tokenExpiry = jwt.getExpiresAt();
+
+    return Objects.nonNull(tokenExpiry) && tokenExpiry.isBefore(ttlLimit)
+      ? tokenExpiry
+      : ttlLimit;
+  }
+
+  // drops stale entries first, then arbitrary ones until there is room again.
+  // ConcurrentHashMap iteration order is effectively random, which is good enough for a token cache.
+  private void trim(final Instant now) {
+    final var target = (int) (maximumSize * TRIM_RATIO);
+
+    cache.entrySet().removeIf(entry -> {
+      final var stale = Objects.isNull(entry.getValue().get(now));
+
+      if (stale) {
+        evictions.increment();
+      }
+
+      return stale;
+    });
+
+    final var iterator = cache.keySet().iterator();
+
+    while (cache.size() > target && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+      evictions.increment();
+    }
+  }
+
+  private static String digest(final String token) {
+    final var sha256 = SHA_256.get();
+    final var hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+
+    return Base64.getEncoder().encodeToString(hash);
+  }
+
+  // SoftReference lets the GC reclaim decoded tokens before the JVM runs out of heap
+  private record CachedJwt(SoftReference<Jwt> jwt, Instant expiresAt) {
+
+    Jwt get(final Instant now) {
+      return now.isBefore(expiresAt)
+        ? jwt.get()
+        : null;
+    }
+  }
+}
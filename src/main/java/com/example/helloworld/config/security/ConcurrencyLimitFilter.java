@@ -0,0 +1,88 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.GlobalErrorHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+// Right behind ResponseHeadersFilter and Spring Boot's request metrics filter, so a shed request still gets the
+// security headers and shows up in http.server.requests, and well in front of Spring Security's filter chain
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(
+  prefix = "application.concurrency-limits",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public final class ConcurrencyLimitFilter implements Filter {
+
+  // Sheds load once a route group has as many requests in flight as its adaptive limit allows, see
+  // ConcurrencyLimiter. A shed request gets a pre-serialized 503 without its token ever being decoded.
+  // The latency fed back to the limiter covers everything after this filter: security, rate limits and the handler.
+
+  private final ConcurrencyLimiter limiter;
+
+  private final GlobalErrorHandler errorHandler;
+
+  public ConcurrencyLimitFilter(
+    final ApplicationProperties applicationProps,
+    final GlobalErrorHandler errorHandler,
+    final MeterRegistry meterRegistry
+  ) {
+    this.limiter = new ConcurrencyLimiter(applicationProps.concurrencyLimits()).bindTo(meterRegistry);
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public void doFilter(
+    final ServletRequest request,
+    final ServletResponse response,
+    final FilterChain chain
+  ) throws IOException, ServletException {
+    if (!(request instanceof final HttpServletRequest httpRequest)
+      || !(response instanceof final HttpServletResponse httpResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final var group = limiter.group(PathPrefixRequestMatcher.pathWithinApplication(httpRequest));
+
+    if (Objects.isNull(group)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    if (!group.tryAcquire()) {
+      errorHandler.handleOverloaded(httpResponse);
+      return;
+    }
+
+    final var started = System.nanoTime();
+
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      group.release(System.nanoTime() - started);
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package com.example.helloworld.config.security;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.lang.Nullable;
+
+import com.example.helloworld.config.ApplicationProperties.ConcurrencyLimits;
+import com.example.helloworld.config.Paths;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Adaptive limits on how many requests are inside the app at once, one per route group of Paths (public and
+// authenticated), so a flood on one group can't starve the other. A request over its group's limit is turned away
+// before its token is even looked at, instead of waiting in Tomcat's queue and paying for verification on the way.
+// The limit follows latency (a gradient limit): once per window the window's average latency is compared with the
+// long term average. While they're close the limit grows by about its square root, and when latency climbs, because
+// requests have started to queue somewhere, it shrinks in proportion, down to half per window.
+// Admitting a request is one CAS on its group's in flight counter, only the thread that closes a window does the math.
+public final class ConcurrencyLimiter {
+
+  // how much of a new limit is applied per window, so one odd window doesn't swing it
+  private static final double SMOOTHING = 0.2;
+
+  // weight of a window in the long term average latency, about the last 20 windows count
+  private static final double LONG_TERM_WEIGHT = 0.05;
+
+  // a window with fewer samples says too little about latency, the limit stays where it is
+  private static final long MINIMUM_SAMPLES = 10;
+
+  private final PathPrefixTrie<Group> routes = new PathPrefixTrie<>();
+
+  private final Map<Paths.Access, Group> groups = new EnumMap<>(Paths.Access.class);
+
+  public ConcurrencyLimiter(final ConcurrencyLimits concurrencyLimits) {
+    this(concurrencyLimits, System::nanoTime);
+  }
+
+  public ConcurrencyLimiter(final ConcurrencyLimits concurrencyLimits, final LongSupplier nanoTime) {
+    Objects.requireNonNull(nanoTime, "nanoTime");
+
+    concurrencyLimits.groups().forEach((access, limit) -> {
+      if (limit.minimumLimit() < 1
+        || limit.initialLimit() < limit.minimumLimit()
+        || limit.maximumLimit() < limit.initialLimit()) {
+        throw new IllegalArgumentException("Concurrency limits for " + access
+          + " need 1 <= minimum-limit <= initial-limit <= maximum-limit");
+      }
+
+      if (limit.tolerance() < 1.0) {
+        throw new IllegalArgumentException("Concurrency limit tolerance for " + access + " must be at least 1");
+      }
+
+      groups.put(access, new Group(access, limit, concurrencyLimits.window().toNanos(), nanoTime));
+    });
+
+    for (final var endpoint : Paths.endpoints()) {
+      final var group = groups.get(endpoint.access());
+
+      if (Objects.nonNull(group)) {
+        routes.put(endpoint.path(), group);
+      }
+    }
+  }
+
+  // The group a request path belongs to, null when it isn't limited (not an endpoint, or a group without a limit)
+  @Nullable
+  public Group group(final String path) {
+    return routes.find(path);
+  }
+
+  // Current limit, requests in flight and rejections per group, tagged with the group
+  public ConcurrencyLimiter bindTo(final MeterRegistry registry) {
+    groups.forEach((access, group) -> {
+      final var tag = access.name().toLowerCase(Locale.ROOT);
+
+      Gauge.builder("http.server.concurrency.limit", group, Group::limit)
+        .description("Requests the route group currently lets in at once")
+        .tag("group", tag)
+        .register(registry);
+      Gauge.builder("http.server.concurrency.in.flight", group, Group::inFlight)
+        .description("Requests of the route group inside the app right now")
+        .tag("group", tag)
+        .register(registry);
+      FunctionCounter.builder("http.server.concurrency.rejected", group, Group::rejected)
+        .description("Requests turned away with a 503 because the route group was at its limit")
+        .tag("group", tag)
+        .register(registry);
+    });
+    return this;
+  }
+
+  public static final class Group {
+
+    private final Paths.Access access;
+
+    private final int minimumLimit;
+
+    private final int maximumLimit;
+
+    private final double tolerance;
+
+    private final long windowNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // most requests in flight at once during the current window
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder latencySum = new LongAdder();
+
+    private final LongAdder latencyCount = new LongAdder();
+
+    private final AtomicLong windowStart;
+
+    // written only by the thread that closed the window, which the CAS on windowStart makes one at a time
+    private volatile double limit;
+
+    private volatile double longTermLatency;
+
+    private Group(
+      final Paths.Access access,
+      final ConcurrencyLimits.GroupLimit limit,
+      final long windowNanos,
+      final LongSupplier nanoTime
+    ) {
+      this.access = access;
+      this.minimumLimit = limit.minimumLimit();
+      this.maximumLimit = limit.maximumLimit();
+      this.tolerance = limit.tolerance();
+      this.windowNanos = windowNanos;
+      this.nanoTime = nanoTime;
+      this.limit = limit.initialLimit();
+      this.windowStart = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    // false when the group is at its limit, the request must be turned away. Otherwise release() must follow
+    public boolean tryAcquire() {
+      while (true) {
+        final var current = inFlight.get();
+
+        if (current >= (int) limit) {
+          rejected.increment();
+          return false;
+        }
+
+        if (inFlight.compareAndSet(current, current + 1)) {
+          if (current + 1 > peakInFlight.get()) {
+            peakInFlight.accumulateAndGet(current + 1, Math::max);
+          }
+
+          return true;
+        }
+      }
+    }
+
+    // The request is done, latencyNanos counting from just after tryAcquire()
+    public void release(final long latencyNanos) {
+      inFlight.decrementAndGet();
+      latencySum.add(latencyNanos);
+      latencyCount.increment();
+
+      final var now = nanoTime.getAsLong();
+      final var start = windowStart.get();
+
+      // at most one thread closes a window, the others don't wait for it
+      if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+        update();
+      }
+    }
+
+    // For requests that ended without a meaningful latency, e.g. the client went away
+    public void cancel() {
+      inFlight.decrementAndGet();
+    }
+
+    public Paths.Access access() {
+      return access;
+    }
+
+    public int limit() {
+      return (int) limit;
+    }
+
+    public int inFlight() {
+      return inFlight.get();
+    }
+
+    public long rejected() {
+      return rejected.sum();
+    }
+
+    // Samples added while the sums are read and reset land in this window or the next, either is fine
+    private void update() {
+      final var count = latencyCount.sumThenReset();
+      final var sum = latencySum.sumThenReset();
+      final var peak = peakInFlight.getAndSet(inFlight.get());
+
+      if (count < MINIMUM_SAMPLES) {
+        return;
+      }
+
+      final var latency = (double) sum / count;
+      var longTerm = longTermLatency;
+
+      longTerm = longTerm == 0.0 ? latency : longTerm + (latency - longTerm) * LONG_TERM_WEIGHT;
+
+      // after a long stretch of overload the average has crept up with it, pull it back so the limit can recover
+      if (longTerm / latency > 2.0) {
+        longTerm *= 0.95;
+      }
+
+      longTermLatency = longTerm;
+
+      final var current = limit;
+
+      // an idle group would otherwise keep growing its limit without ever having tried it
+      if (peak < current / 2) {
+        return;
+      }
+
+      final var gradient = Math.max(0.5, Math.min(1.0, tolerance * longTerm / latency));
+      final var target = current * gradient + Math.sqrt(current);
+      final var next = current * (1.0 - SMOOTHING) + target * SMOOTHING;
+
+      limit = Math.max(minimumLimit, Math.min(maximumLimit, next));
+    }
+  }
+}
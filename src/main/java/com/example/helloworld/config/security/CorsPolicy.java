@@ -0,0 +1,148 @@
+package com.example.helloworld.config.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.web.cors.CorsConfiguration;
+
+import com.example.helloworld.config.security.ResponseHeaderBlocks.HeaderBlock;
+
+// The CORS rules from ApplicationConfig.apiCorsConfiguration, compiled once at startup into
+// a hash lookup per origin and the exact headers each answer needs. Shared by the servlet and reactive CORS filters.
+// Accepts and rejects the same requests as Spring's DefaultCorsProcessor with that configuration:
+// origins are compared ignoring case and a trailing slash, the requested method and headers must all be allowed.
+final class CorsPolicy {
+
+  // sent on every response, like DefaultCorsProcessor does, so caches keep answers for different origins apart
+  static final String VARY = String.join(", ",
+    HttpHeaders.ORIGIN,
+    HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD,
+    HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS
+  );
+
+  // same status and body DefaultCorsProcessor rejects with
+  static final byte[] REJECTED_BODY = "Invalid CORS request".getBytes(StandardCharsets.UTF_8);
+
+  private static final String ANY_ORIGIN = CorsConfiguration.ALL;
+
+  // by normalized origin
+  private final Map<String, HeaderBlock> preflightHeaders;
+
+  private final Map<String, HeaderBlock> actualHeaders;
+
+  // lower case, header names are case-insensitive
+  private final Set<String> allowedHeaders;
+
+  private final Set<String> allowedMethods;
+
+  CorsPolicy(final CorsConfiguration config) {
+    final var origins = Objects.requireNonNullElse(config.getAllowedOrigins(), List.<String>of());
+    final var headers = Objects.requireNonNullElse(config.getAllowedHeaders(), List.<String>of());
+    final var methods = Objects.requireNonNullElse(config.getAllowedMethods(), List.of(HttpMethod.GET.name()));
+    final var preflights = new HashMap<String, HeaderBlock>();
+    final var actuals = new HashMap<String, HeaderBlock>();
+
+    if (headers.contains(CorsConfiguration.ALL) || methods.contains(CorsConfiguration.ALL)) {
+      throw new IllegalArgumentException("CORS headers and methods have to be listed, \"*\" isn't supported");
+    }
+
+    for (final var origin : origins) {
+      final var normalized = normalize(origin);
+      final var preflight = new LinkedHashMap<String, String>();
+
+      preflight.put(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, normalized);
+      preflight.put(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, String.join(", ", methods));
+      preflight.put(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, String.join(", ", headers));
+
+      if (Objects.nonNull(config.getMaxAge())) {
+        preflight.put(HttpHeaders.ACCESS_CONTROL_MAX_AGE, config.getMaxAge().toString());
+      }
+
+      preflights.put(normalized, HeaderBlock.compile(preflight));
+      actuals.put(normalized, HeaderBlock.compile(Map.of(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, normalized)));
+    }
+
+    this.preflightHeaders = Map.copyOf(preflights);
+    this.actualHeaders = Map.copyOf(actuals);
+    this.allowedHeaders = headers.stream()
+      .map(header -> header.toLowerCase(Locale.ROOT))
+      .collect(Collectors.toUnmodifiableSet());
+    this.allowedMethods = Set.copyOf(methods);
+  }
+
+  // The preflight answer for this origin, or null when the preflight has to be rejected
+  @Nullable
+  HeaderBlock preflight(final String origin, @Nullable final String method, @Nullable final String requestHeaders) {
+    final var headers = lookup(preflightHeaders, origin);
+
+    if (Objects.isNull(headers) || Objects.isNull(method) || !allowedMethods.contains(method)) {
+      return null;
+    }
+
+    return allHeadersAllowed(requestHeaders) ? headers : null;
+  }
+
+  // Headers for a request from this origin, or null when the origin isn't allowed
+  @Nullable
+  HeaderBlock actual(final String origin) {
+    return lookup(actualHeaders, origin);
+  }
+
+  @Nullable
+  private static HeaderBlock lookup(final Map<String, HeaderBlock> byOrigin, final String origin) {
+    // browsers send origins already in normalized form, so normalizing is only needed on a miss
+    final var headers = byOrigin.get(origin);
+
+    if (Objects.nonNull(headers)) {
+      return headers;
+    }
+
+    final var normalized = byOrigin.get(normalize(origin));
+
+    return Objects.nonNull(normalized)
+      ? normalized
+      : byOrigin.get(ANY_ORIGIN);
+  }
+
+  // Access-Control-Request-Headers is a comma separated list. Browsers send one short line, so a plain scan will do
+  private boolean allHeadersAllowed(@Nullable final String requestHeaders) {
+    if (Objects.isNull(requestHeaders)) {
+      return true;
+    }
+
+    var start = 0;
+
+    while (start <= requestHeaders.length()) {
+      final var comma = requestHeaders.indexOf(',', start);
+      final var end = comma < 0 ? requestHeaders.length() : comma;
+      final var header = requestHeaders.substring(start, end).strip();
+
+      if (!header.isEmpty() && !allowedHeaders.contains(header.toLowerCase(Locale.ROOT))) {
+        return false;
+      }
+
+      start = end + 1;
+    }
+
+    return true;
+  }
+
+  private static String normalize(final String origin) {
+    final var trimmed = origin.strip();
+    final var withoutSlash = trimmed.endsWith("/")
+      ? trimmed.substring(0, trimmed.length() - 1)
+      : trimmed;
+
+    return withoutSlash.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsUtils;
+
+// Right before Spring Security's filter chain, so preflights are answered without going through it
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public final class CorsPolicyFilter implements Filter {
+
+  // The only place CORS is evaluated, Spring Security's own CORS support is left off.
+  // Preflights (OPTIONS with Origin and Access-Control-Request-Method) are answered right here
+  // with the headers precomputed for their origin, or rejected with a 403.
+  // Other requests from an allowed origin get Access-Control-Allow-Origin and carry on,
+  // cross-origin requests from any other origin are rejected like Spring's CorsFilter does.
+
+  private final CorsPolicy policy;
+
+  public CorsPolicyFilter(final CorsConfiguration config) {
+    this.policy = new CorsPolicy(config);
+  }
+
+  @Override
+  public void doFilter(
+    final ServletRequest request,
+    final ServletResponse response,
+    final FilterChain chain
+  ) throws IOException, ServletException {
+    if (!(request instanceof final HttpServletRequest httpRequest)
+      || !(response instanceof final HttpServletResponse httpResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final var origin = httpRequest.getHeader(HttpHeaders.ORIGIN);
+
+    httpResponse.addHeader(HttpHeaders.VARY, CorsPolicy.VARY);
+
+    if (Objects.isNull(origin)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final var requestMethod = httpRequest.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD);
+
+    if (HttpMethod.OPTIONS.matches(httpRequest.getMethod()) && Objects.nonNull(requestMethod)) {
+      final var headers = policy.preflight(
+        origin,
+        requestMethod,
+        httpRequest.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS)
+      );
+
+      if (Objects.isNull(headers)) {
+        reject(httpResponse);
+      } else {
+        headers.applyTo(httpResponse);
+        httpResponse.setStatus(HttpServletResponse.SC_OK);
+      }
+
+      return;
+    }
+
+    final var headers = policy.actual(origin);
+
+    if (Objects.nonNull(headers)) {
+      headers.applyTo(httpResponse);
+    } else if (CorsUtils.isCorsRequest(httpRequest)) {
+      // same-origin requests may send an Origin header too, those are let through
+      reject(httpResponse);
+      return;
+    }
+
+    chain.doFilter(request, response);
+  }
+
+  private static void reject(final HttpServletResponse response) throws IOException {
+    response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+    response.getOutputStream().write(CorsPolicy.REJECTED_BODY);
+    response.flushBuffer();
+  }
+}
@@ -0,0 +1,211 @@
+package com.example.helloworld.config.security;
+
+import java.text.ParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+
+import com.example.helloworld.config.ApplicationProperties.TrustedIssuer;
+import com.nimbusds.jwt.JWTParser;
+
+import lombok.extern.log4j.Log4j2;
+
+// Picks the decoder for a token from its (not yet verified) iss claim, for apps that accept tokens from
+// several Auth0 tenants. The iss claim only chooses which keys and audiences the token is checked against,
+// the chosen decoder still verifies the signature and validates iss like before.
+// The primary issuer's decoder is built at startup. The others are built the first time one of their tokens
+// shows up, with their own JWK set, and at most maximumSize of them are kept: the least recently used is closed.
+// A token from an issuer that isn't configured is rejected after parsing it, before anything touches the network.
+// D is JwtDecoder for the servlet stack and ReactiveJwtDecoder for the reactive one.
+@Log4j2
+public final class IssuerDecoders<D> implements AutoCloseable {
+
+  private final String primaryIssuer;
+
+  private final D primaryDecoder;
+
+  private final Map<String, TrustedIssuer> trusted;
+
+  private final int maximumSize;
+
+  private final Function<TrustedIssuer, D> factory;
+
+  private final Consumer<D> onEvict;
+
+  private final ConcurrentHashMap<String, Pooled<D>> pool = new ConcurrentHashMap<>();
+
+  public IssuerDecoders(
+    final String primaryIssuer,
+    final D primaryDecoder,
+    final List<TrustedIssuer> trusted,
+    final int maximumSize,
+    final Function<TrustedIssuer, D> factory,
+    final Consumer<D> onEvict
+  ) {
+    this.primaryIssuer = Objects.requireNonNull(primaryIssuer, "primaryIssuer");
+    this.primaryDecoder = Objects.requireNonNull(primaryDecoder, "primaryDecoder");
+    this.trusted = trusted.stream()
+      .filter(issuer -> !issuer.issuerUri().equals(primaryIssuer))
+      .collect(Collectors.toUnmodifiableMap(TrustedIssuer::issuerUri, Function.identity()));
+    this.maximumSize = Math.max(1, maximumSize);
+    this.factory = Objects.requireNonNull(factory, "factory");
+    this.onEvict = Objects.requireNonNull(onEvict, "onEvict");
+  }
+
+  public D select(final String token) {
+    final var issuer = unverifiedIssuer(token);
+
+    if (primaryIssuer.equals(issuer)) {
+      return primaryDecoder;
+    }
+
+    final var trustedIssuer = trusted.get(issuer);
+
+    if (Objects.isNull(trustedIssuer)) {
+      throw new UntrustedIssuerException();
+    }
+
+    // null when the entry was evicted meanwhile, then the issuer gets a new one
+    D decoder = null;
+
+    while (Objects.isNull(decoder)) {
+      decoder = pool.computeIfAbsent(issuer, key -> new Pooled<>(trustedIssuer)).get(factory, onEvict);
+    }
+
+    if (pool.size() > maximumSize) {
+      evictLeastRecentlyUsed();
+    }
+
+    return decoder;
+  }
+
+  public int size() {
+    return pool.size();
+  }
+
+  @Override
+  public void close() {
+    pool.values().forEach(pooled -> pooled.close(onEvict));
+    pool.clear();
+  }
+
+  // Few issuers are ever configured, so a scan is cheaper than keeping an LRU order on every request
+  private void evictLeastRecentlyUsed() {
+    pool.entrySet().stream()
+      .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+      .ifPresent(entry -> {
+        if (pool.remove(entry.getKey(), entry.getValue())) {
+          log.info("Closing the decoder for issuer {}, more than {} issuers in use", entry.getKey(), maximumSize);
+          entry.getValue().close(onEvict);
+        }
+      });
+  }
+
+  private static String unverifiedIssuer(final String token) {
+    try {
+      final var issuer = JWTParser.parse(token).getJWTClaimsSet().getIssuer();
+
+      if (Objects.isNull(issuer)) {
+        throw new UntrustedIssuerException();
+      }
+
+      return issuer;
+    } catch (final ParseException e) {
+      // same message and cause NimbusJwtDecoder uses for tokens it can't parse
+      throw new BadJwtException("An error occurred while attempting to decode the Jwt: " + e.getMessage(), e);
+    }
+  }
+
+  // Built on first use, outside the pool map's locks since building may call the issuer.
+  // decoder and closed change together under the entry's monitor, which is never held while building, so
+  // eviction doesn't wait for a slow issuer. A decoder that finishes building after its entry was evicted is closed
+  // right away instead of being handed out. A request that got the decoder just before eviction keeps using it:
+  // a closed JwkSetRefresher stops refreshing, but still answers from the keys it has
+  private static final class Pooled<D> {
+
+    private final TrustedIssuer issuer;
+
+    private final Object building = new Object();
+
+    private volatile D decoder;
+
+    private volatile boolean closed;
+
+    private volatile long lastUsed = System.nanoTime();
+
+    private Pooled(final TrustedIssuer issuer) {
+      this.issuer = issuer;
+    }
+
+    // null once the entry is closed
+    @Nullable
+    private D get(final Function<TrustedIssuer, D> factory, final Consumer<D> onEvict) {
+      lastUsed = System.nanoTime();
+
+      final var current = decoder;
+
+      if (Objects.nonNull(current) && !closed) {
+        return current;
+      }
+
+      // one build at a time, the others wait for it and take its decoder
+      synchronized (building) {
+        synchronized (this) {
+          if (closed) {
+            return null;
+          }
+
+          if (Objects.nonNull(decoder)) {
+            return decoder;
+          }
+        }
+
+        log.info("Building the decoder for issuer {}", issuer.issuerUri());
+
+        final var built = factory.apply(issuer);
+
+        synchronized (this) {
+          if (!closed) {
+            decoder = built;
+            return built;
+          }
+        }
+
+        log.info("Closing the decoder for issuer {}, evicted while it was built", issuer.issuerUri());
+        onEvict.accept(built);
+        return null;
+      }
+    }
+
+    private void close(final Consumer<D> onEvict) {
+      final D current;
+
+      synchronized (this) {
+        closed = true;
+        current = decoder;
+      }
+
+      if (Objects.nonNull(current)) {
+        onEvict.accept(current);
+      }
+    }
+  }
+
+  // Thrown before any key lookup for tokens whose iss isn't one of the configured issuers
+  public static final class UntrustedIssuerException extends BadJwtException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UntrustedIssuerException() {
+      super("The token's issuer is not trusted");
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestOperations;
+
+import com.example.helloworld.config.ApplicationProperties.IssuerDiscoveryMode;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.log4j.Log4j2;
+
+// Decides where the issuer metadata (mainly the jwks_uri) comes from while the app is starting.
+// EAGER is the classic behaviour: a blocking OpenID discovery call while the SecurityFilterChain is built,
+// so the app can't start while the issuer is unreachable.
+// DEFERRED starts from a configured jwk-set-uri, the discovery document cached on disk by a previous run or,
+// on a fresh pod with neither, Auth0's fixed key set location. It never calls the issuer while starting,
+// revalidate() then refreshes the metadata once the app is up.
+@Log4j2
+public final class IssuerDiscovery {
+
+  private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() { };
+
+  private final RestOperations rest;
+
+  private final String issuer;
+
+  @Nullable private final String configuredJwkSetUri;
+
+  private final Path cacheFile;
+
+  private final ObjectMapper mapper;
+
+  public IssuerDiscovery(
+    final RestOperations rest,
+    final String issuer,
+    @Nullable final String configuredJwkSetUri,
+    final Path cacheFile,
+    final ObjectMapper mapper
+  ) {
+    this.rest = Objects.requireNonNull(rest, "rest");
+    this.issuer = Objects.requireNonNull(issuer, "issuer");
+    this.configuredJwkSetUri = configuredJwkSetUri;
+    this.cacheFile = Objects.requireNonNull(cacheFile, "cacheFile");
+    this.mapper = Objects.requireNonNull(mapper, "mapper");
+  }
+
+  public IssuerMetadata resolve(final IssuerDiscoveryMode mode) {
+    if (mode == IssuerDiscoveryMode.EAGER) {
+      return discoverAndStore();
+    }
+
+    if (StringUtils.hasText(configuredJwkSetUri)) {
+      return new IssuerMetadata(issuer, URI.create(configuredJwkSetUri));
+    }
+
+    return readCache().orElseGet(() -> {
+      final var assumed = IssuerMetadata.assumeAuth0(issuer);
+
+      log.info("No cached discovery document for {}, starting from {}", issuer, assumed.jwkSetUri());
+      return assumed;
+    });
+  }
+
+  // Runs the real discovery and points the refresher at the advertised key set if it moved.
+  // Failures are only logged: the app keeps running on the metadata it started with.
+  public void revalidate(final JwkSetRefresher refresher) {
+    try {
+      final var metadata = discoverAndStore();
+
+      refresher.updateJwkSetUri(metadata.jwkSetUri());
+    } catch (final RuntimeException e) {
+      log.warn("Revalidating the issuer metadata for {} failed: {}", issuer, e.getMessage());
+    }
+  }
+
+  private IssuerMetadata discoverAndStore() {
+    final var metadata = IssuerMetadata.discover(rest, issuer);
+
+    writeCache(metadata);
+    return metadata;
+  }
+
+  private Optional<IssuerMetadata> readCache() {
+    if (!Files.isReadable(cacheFile)) {
+      return Optional.empty();
+    }
+
+    try {
+      final var document = mapper.readValue(cacheFile.toFile(), JSON_OBJECT);
+
+      return Optional.of(IssuerMetadata.from(document, issuer));
+    } catch (final IOException | RuntimeException e) {
+      // A stale file from another tenant or a half written one, ignore it
+      log.warn("Ignoring unusable discovery cache {}: {}", cacheFile, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  // writes to a temp file first and moves it in place, so a crash never leaves a half written cache behind
+  private void writeCache(final IssuerMetadata metadata) {
+    final var document = Map.of("issuer", metadata.issuer(), "jwks_uri", metadata.jwkSetUri().toString());
+
+    try {
+      final var directory = Objects.requireNonNullElse(cacheFile.toAbsolutePath().getParent(), Path.of("."));
+
+      Files.createDirectories(directory);
+
+      final var tempFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+
+      mapper.writeValue(tempFile.toFile(), document);
+      Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      log.warn("Could not write the discovery cache {}: {}", cacheFile, e.getMessage());
+    }
+  }
+}
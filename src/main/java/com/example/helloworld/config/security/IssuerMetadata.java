@@ -0,0 +1,73 @@
+package com.example.helloworld.config.security;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.util.UriComponentsBuilder;
+
+// The parts of the issuer's OpenID discovery document (/.well-known/openid-configuration) this app needs.
+// JwtDecoders.fromIssuerLocation does the same lookup internally, but it also builds its own lazy key fetching,
+// which JwkSetRefresher replaces.
+public record IssuerMetadata(String issuer, URI jwkSetUri) {
+
+  private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+
+  // where Auth0 publishes every tenant's signing keys
+  private static final String AUTH0_JWKS_PATH = "/.well-known/jwks.json";
+
+  private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+    new ParameterizedTypeReference<>() { };
+
+  public static IssuerMetadata discover(final RestOperations rest, final String issuer) {
+    final var discoveryUri = UriComponentsBuilder.fromUriString(issuer)
+      .replacePath(stripTrailingSlash(URI.create(issuer).getPath()) + DISCOVERY_PATH)
+      .build(true)
+      .toUri();
+    final var document = rest.exchange(discoveryUri, HttpMethod.GET, null, JSON_OBJECT).getBody();
+
+    if (Objects.isNull(document)) {
+      throw new IllegalStateException("Empty discovery document from " + discoveryUri);
+    }
+
+    return from(document, issuer);
+  }
+
+  // The metadata an Auth0 tenant advertises, without asking it. Only a starting point for deferred discovery
+  public static IssuerMetadata assumeAuth0(final String issuer) {
+    final var jwkSetUri = UriComponentsBuilder.fromUriString(issuer)
+      .replacePath(stripTrailingSlash(URI.create(issuer).getPath()) + AUTH0_JWKS_PATH)
+      .build(true)
+      .toUri();
+
+    return new IssuerMetadata(issuer, jwkSetUri);
+  }
+
+  // Same check JwtDecoders does: the document must describe the issuer we were configured with
+  public static IssuerMetadata from(final Map<String, Object> document, final String issuer) {
+    final var advertisedIssuer = String.valueOf(document.get("issuer"));
+    final var jwksUri = document.get("jwks_uri");
+
+    if (!issuer.equals(advertisedIssuer)) {
+      throw new IllegalStateException(
+        "The issuer \"%s\" in the discovery document does not match the configured issuer \"%s\""
+          .formatted(advertisedIssuer, issuer)
+      );
+    }
+
+    if (Objects.isNull(jwksUri)) {
+      throw new IllegalStateException("The discovery document for " + issuer + " has no jwks_uri");
+    }
+
+    return new IssuerMetadata(issuer, URI.create(jwksUri.toString()));
+  }
+
+  private static String stripTrailingSlash(final String path) {
+    return path.endsWith("/")
+      ? path.substring(0, path.length() - 1)
+      : path;
+  }
+}
@@ -0,0 +1,232 @@
+package com.example.helloworld.config.security;
+
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import io.micrometer.core.instrument.Meter;
+import lombok.extern.log4j.Log4j2;
+
+// JWKS = JSON Web Key Set, the issuer's public keys used to check JWT signatures.
+// The default NimbusJwtDecoder fetches these lazily on the request path, so the first requests after a key
+// rotation stall on an HTTP call and a burst of them can trigger several fetches at once.
+// This source keeps the key set in memory, refreshes it on a schedule in the background and swaps it atomically.
+// A token signed with an unknown kid (key id) triggers one shared refresh, no matter how many requests ask for it.
+// When a fetch fails the last known good key set keeps being served.
+@Log4j2
+public final class JwkSetRefresher implements JWKSource<SecurityContext>, AutoCloseable {
+
+  private final AtomicReference<URI> jwkSetUri;
+
+  private final RestOperations rest;
+
+  private final Duration refreshInterval;
+
+  private final Duration minimumRefreshInterval;
+
+  private final Duration fetchTimeout;
+
+  private final Clock clock;
+
+  private final AuthMetrics metrics;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final AtomicReference<JWKSet> keys = new AtomicReference<>(new JWKSet());
+
+  // the refresh currently running, if any. Every caller that needs fresh keys joins this one instead of fetching again
+  private final AtomicReference<CompletableFuture<JWKSet>> inFlight = new AtomicReference<>();
+
+  private volatile Instant lastRefreshAttempt = Instant.EPOCH;
+
+  private volatile Instant lastSuccessfulRefresh = Instant.EPOCH;
+
+  private volatile Meter staleness;
+
+  public JwkSetRefresher(
+    final URI jwkSetUri,
+    final RestOperations rest,
+    final Duration refreshInterval,
+    final Duration minimumRefreshInterval,
+    final Duration fetchTimeout,
+    final AuthMetrics metrics
+  ) {
+    this.jwkSetUri = new AtomicReference<>(Objects.requireNonNull(jwkSetUri, "jwkSetUri"));
+    this.rest = Objects.requireNonNull(rest, "rest");
+    this.refreshInterval = refreshInterval;
+    this.minimumRefreshInterval = minimumRefreshInterval;
+    this.fetchTimeout = fetchTimeout;
+    this.clock = Clock.systemUTC();
+    this.metrics = Objects.requireNonNull(metrics, "metrics");
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final var thread = new Thread(runnable, "jwks-refresher");
+
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // loads the keys right away in the background, then keeps them fresh every refreshInterval
+  public JwkSetRefresher start() {
+    staleness = metrics.bindJwksStaleness(Objects.toString(jwkSetUri.get().getHost()), this);
+    scheduler.scheduleWithFixedDelay(
+      this::refreshQuietly,
+      0,
+      refreshInterval.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+
+    return this;
+  }
+
+  @Override
+  public List<JWK> get(final JWKSelector jwkSelector, final SecurityContext context) throws KeySourceException {
+    final var matches = jwkSelector.select(keys.get());
+
+    if (!matches.isEmpty()) {
+      return matches;
+    }
+
+    // Unknown kid: either the issuer rotated its keys or the token is forged.
+    // Refresh at most once per minimumRefreshInterval so random kids can't be used to hammer the issuer.
+    if (!refreshAllowed()) {
+      return matches;
+    }
+
+    return jwkSelector.select(awaitRefresh());
+  }
+
+  public JWKSet currentKeys() {
+    return keys.get();
+  }
+
+  public Instant lastSuccessfulRefresh() {
+    return lastSuccessfulRefresh;
+  }
+
+  public URI jwkSetUri() {
+    return jwkSetUri.get();
+  }
+
+  // Lets the issuer metadata be revalidated after startup. The next refresh uses the new location.
+  public void updateJwkSetUri(final URI uri) {
+    final var previous = jwkSetUri.getAndSet(Objects.requireNonNull(uri, "uri"));
+
+    if (!previous.equals(uri)) {
+      log.info("JWK set location changed from {} to {}", previous, uri);
+      refresh();
+    }
+  }
+
+  // starts a refresh, or returns the one already running
+  public CompletableFuture<JWKSet> refresh() {
+    final var candidate = new CompletableFuture<JWKSet>();
+    final var existing = inFlight.compareAndExchange(null, candidate);
+
+    if (Objects.nonNull(existing)) {
+      return existing;
+    }
+
+    try {
+      candidate.complete(fetch());
+    } catch (final RuntimeException e) {
+      candidate.completeExceptionally(e);
+    } finally {
+      inFlight.set(null);
+    }
+
+    return candidate;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+
+    if (Objects.nonNull(staleness)) {
+      metrics.unbind(staleness);
+    }
+  }
+
+  private boolean refreshAllowed() {
+    return Objects.nonNull(inFlight.get())
+      || lastRefreshAttempt.plus(minimumRefreshInterval).isBefore(clock.instant());
+  }
+
+  private JWKSet awaitRefresh() throws KeySourceException {
+    try {
+      return refresh().get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new KeySourceException("Interrupted while refreshing the JWK set", e);
+    } catch (final ExecutionException | TimeoutException e) {
+      log.warn("JWK set refresh failed, serving last known good keys: {}", e.getMessage());
+      return keys.get();
+    }
+  }
+
+  private void refreshQuietly() {
+    refresh().exceptionally(error -> {
+      log.warn("Scheduled JWK set refresh failed, serving last known good keys: {}", error.getMessage());
+      return keys.get();
+    });
+  }
+
+  private JWKSet fetch() {
+    final var started = System.nanoTime();
+    var succeeded = false;
+
+    try {
+      final var jwkSet = fetchFrom(jwkSetUri.get());
+
+      succeeded = true;
+      return jwkSet;
+    } finally {
+      metrics.recordJwksFetch(started, succeeded);
+    }
+  }
+
+  private JWKSet fetchFrom(final URI uri) {
+    lastRefreshAttempt = clock.instant();
+
+    final var body = rest.getForObject(uri, String.class);
+
+    if (Objects.isNull(body)) {
+      throw new RestClientException("Empty JWK set response from " + uri);
+    }
+
+    try {
+      final var jwkSet = JWKSet.parse(body);
+
+      if (jwkSet.getKeys().isEmpty()) {
+        throw new RestClientException("JWK set from " + uri + " contains no keys");
+      }
+
+      keys.set(jwkSet);
+      lastSuccessfulRefresh = clock.instant();
+      return jwkSet;
+    } catch (final ParseException e) {
+      throw new RestClientException("Malformed JWK set from " + uri, e);
+    }
+  }
+}
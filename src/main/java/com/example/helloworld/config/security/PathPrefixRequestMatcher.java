@@ -0,0 +1,45 @@
+package com.example.helloworld.config.security;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+// Matches a request when its path starts with one of the registered paths, on a "/" segment boundary.
+// The paths are compiled into a PathPrefixTrie once, so matching walks the request's segments
+// and costs the same no matter how many paths are registered (unlike one big alternation regex).
+// e.g. registering /api/messages/admin matches /api/messages/admin and /api/messages/admin/anything
+public final class PathPrefixRequestMatcher implements RequestMatcher {
+
+  private final PathPrefixTrie<Boolean> paths = new PathPrefixTrie<>();
+
+  public PathPrefixRequestMatcher(final Collection<String> paths) {
+    paths.forEach(path -> this.paths.put(path, Boolean.TRUE));
+  }
+
+  @Override
+  public boolean matches(final HttpServletRequest request) {
+    return matches(pathWithinApplication(request));
+  }
+
+  public boolean matches(final String path) {
+    return Objects.nonNull(paths.find(path));
+  }
+
+  @Override
+  public String toString() {
+    return "PathPrefixRequestMatcher" + paths;
+  }
+
+  // Same as Spring's RegexRequestMatcher: the servlet path and path info are already decoded and normalized
+  // by the container, so %-encoded or dot-segment variants of a path can't slip past the match.
+  static String pathWithinApplication(final HttpServletRequest request) {
+    final var pathInfo = request.getPathInfo();
+
+    return Objects.isNull(pathInfo)
+      ? request.getServletPath()
+      : request.getServletPath() + pathInfo;
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.helloworld.config.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.lang.Nullable;
+
+// Paths compiled into a trie of "/" segments, each registered path carrying a value.
+// A lookup walks the request path's segments, so it costs the same no matter how many paths are registered.
+// A path matches a registered path when it starts with it on a segment boundary, e.g. /api/messages/admin
+// matches /api/messages/admin and /api/messages/admin/anything. The longest registered prefix wins.
+// Built once at startup and only read afterwards.
+public final class PathPrefixTrie<T> {
+
+  private final Node<T> root = new Node<>();
+
+  public PathPrefixTrie<T> put(final String path, final T value) {
+    var node = root;
+
+    for (final var segment : path.split("/")) {
+      if (!segment.isEmpty()) {
+        node = node.children.computeIfAbsent(segment, key -> new Node<>());
+      }
+    }
+
+    node.value = Objects.requireNonNull(value, "value");
+    return this;
+  }
+
+  @Nullable
+  public T find(final String path) {
+    var node = root;
+    var found = node.value;
+    var start = path.startsWith("/") ? 1 : 0;
+
+    while (start <= path.length() && !node.children.isEmpty()) {
+      final var slash = path.indexOf('/', start);
+      final var end = slash < 0 ? path.length() : slash;
+
+      node = node.children.get(path.substring(start, end));
+
+      if (Objects.isNull(node)) {
+        break;
+      }
+
+      if (Objects.nonNull(node.value)) {
+        found = node.value;
+      }
+
+      start = end + 1;
+    }
+
+    return found;
+  }
+
+  @Override
+  public String toString() {
+    return root.toString();
+  }
+
+  private static final class Node<T> {
+
+    private final Map<String, Node<T>> children = new HashMap<>();
+
+    @Nullable private T value;
+
+    @Override
+    public String toString() {
+      return Objects.nonNull(value) ? value + "" + children : children.toString();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.example.helloworld.config.security;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.Permission;
+
+// Decides whether an authenticated request may reach its endpoint.
+// The permissions each endpoint declares in Paths are compiled into a trie of required bits at startup,
+// so a decision is a path lookup and a bit test against the token's precomputed Permissions.
+// Prefix semantics are the same as PathPrefixRequestMatcher: /api/messages/admin/ needs what /api/messages/admin needs.
+public final class PermissionAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+  private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+  private final PathPrefixTrie<Long> requiredBits = new PathPrefixTrie<>();
+
+  public PermissionAuthorizationManager(final List<Paths.ApiPaths.MessagesPaths.MessagesEndpoint> endpoints) {
+    endpoints.forEach(endpoint -> requiredBits.put(endpoint.path(), Permission.bits(endpoint.permissions())));
+  }
+
+  @Override
+  public AuthorizationDecision check(
+    final Supplier<Authentication> authentication,
+    final RequestAuthorizationContext context
+  ) {
+    return decide(authentication.get(), PathPrefixRequestMatcher.pathWithinApplication(context.getRequest()));
+  }
+
+  // Shared with the reactive profile, which works out the path from the exchange instead
+  public AuthorizationDecision decide(final Authentication authentication, final String path) {
+    // Anonymous requests have no AuthorizedJwt, they're denied and Spring answers them with the 401 entry point
+    if (Objects.isNull(authentication)
+      || !authentication.isAuthenticated()
+      || !(authentication.getPrincipal() instanceof final AuthorizedJwt jwt)) {
+      return DENIED;
+    }
+
+    final var required = requiredBits.find(path);
+
+    return Objects.isNull(required) || jwt.permissions().grants(required)
+      ? GRANTED
+      : DENIED;
+  }
+}
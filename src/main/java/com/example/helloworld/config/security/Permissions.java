@@ -0,0 +1,106 @@
+package com.example.helloworld.config.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.example.helloworld.config.Permission;
+
+// The permissions a token grants, as a bitset with one bit per Permission.
+// Instances are interned by their bits: there are only as many distinct instances as permission combinations
+// actually seen, and each one builds its GrantedAuthority list once instead of once per token.
+public final class Permissions {
+
+  private static final Map<Long, Permissions> INTERNED = new ConcurrentHashMap<>();
+
+  public static final Permissions NONE = of(0L);
+
+  private final long bits;
+
+  private final List<GrantedAuthority> authorities;
+
+  private Permissions(final long bits) {
+    this.bits = bits;
+
+    final var granted = new ArrayList<GrantedAuthority>();
+
+    for (final var permission : Permission.values()) {
+      if ((bits & permission.bit()) != 0) {
+        granted.add(new SimpleGrantedAuthority(permission.claimValue()));
+      }
+    }
+
+    this.authorities = List.copyOf(granted);
+  }
+
+  public static Permissions of(final long bits) {
+    return INTERNED.computeIfAbsent(bits, Permissions::new);
+  }
+
+  // Auth0 puts RBAC permissions in the "permissions" claim (a list) and OAuth scopes in "scope"
+  // (one space separated string), a permission granted either way counts.
+  // Names this API doesn't know about are ignored, so they can't grow the interned set.
+  public static Permissions from(final Jwt jwt) {
+    var bits = 0L;
+    final var permissions = jwt.getClaimAsStringList("permissions");
+    final var scope = jwt.getClaimAsString("scope");
+
+    if (Objects.nonNull(permissions)) {
+      bits |= bitsOf(permissions);
+    }
+
+    if (Objects.nonNull(scope)) {
+      bits |= bitsOf(List.of(scope.split(" ")));
+    }
+
+    return of(bits);
+  }
+
+  // true when every bit in required is granted
+  public boolean grants(final long required) {
+    return (bits & required) == required;
+  }
+
+  public long bits() {
+    return bits;
+  }
+
+  public List<GrantedAuthority> authorities() {
+    return authorities;
+  }
+
+  @Override
+  public String toString() {
+    final var granted = EnumSet.noneOf(Permission.class);
+
+    for (final var permission : Permission.values()) {
+      if (grants(permission.bit())) {
+        granted.add(permission);
+      }
+    }
+
+    return "Permissions" + granted;
+  }
+
+  private static long bitsOf(final Collection<String> claimValues) {
+    var bits = 0L;
+
+    for (final var claimValue : claimValues) {
+      final var permission = Permission.fromClaimValue(claimValue);
+
+      if (Objects.nonNull(permission)) {
+        bits |= permission.bit();
+      }
+    }
+
+    return bits;
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.GlobalErrorHandler;
+
+@Component
+// Right after Spring Security's filter chain, so the token has been verified and its subject can be trusted
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(
+  prefix = "application.rate-limits",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public final class RateLimitFilter implements Filter {
+
+  // Limits requests per client on the routes listed in application.rate-limits.
+  // Authenticated requests are counted per token subject, so one user can't get around the limit
+  // by spreading requests over several IPs, and users behind one NAT don't share a bucket.
+  // Anonymous requests (the public route) are counted per client IP.
+
+  private final RateLimiter limiter;
+
+  private final GlobalErrorHandler errorHandler;
+
+  public RateLimitFilter(final ApplicationProperties applicationProps, final GlobalErrorHandler errorHandler) {
+    this.limiter = new RateLimiter(applicationProps.rateLimits());
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public void doFilter(
+    final ServletRequest request,
+    final ServletResponse response,
+    final FilterChain chain
+  ) throws IOException, ServletException {
+    if (request instanceof final HttpServletRequest httpRequest
+      && response instanceof final HttpServletResponse httpResponse) {
+      final var path = PathPrefixRequestMatcher.pathWithinApplication(httpRequest);
+      final var authentication = SecurityContextHolder.getContext().getAuthentication();
+      final var wait = limiter.acquire(path, clientKey(authentication, httpRequest.getRemoteAddr()));
+
+      if (wait != RateLimiter.ALLOWED) {
+        errorHandler.handleTooManyRequests(httpResponse, RateLimiter.retryAfterSeconds(wait));
+        return;
+      }
+    }
+
+    chain.doFilter(request, response);
+  }
+
+  // Prefixed so a subject can never collide with an IP address. Shared with the reactive filter
+  static String clientKey(final Authentication authentication, final String remoteAddress) {
+    return Objects.nonNull(authentication) && authentication.getPrincipal() instanceof final Jwt jwt
+      ? "sub:" + jwt.getSubject()
+      : "ip:" + remoteAddress;
+  }
+}
@@ -0,0 +1,127 @@
+package com.example.helloworld.config.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.example.helloworld.config.ApplicationProperties.RateLimits;
+
+// In-process token buckets per route and client (the token's subject, or the client IP for anonymous requests).
+// Each bucket is a single AtomicLong holding the time at which it will be full again (GCRA, the
+// "virtual scheduling" form of a token bucket), so taking a token is one CAS on that client's own bucket
+// and clients never contend with each other, however many there are.
+// A bucket that has been full for idleTimeout behaves exactly like a new one, so it's dropped during a sweep.
+public final class RateLimiter {
+
+  // returned by acquire() when the request may go ahead
+  public static final long ALLOWED = 0L;
+
+  private final PathPrefixTrie<RouteLimiter> routes = new PathPrefixTrie<>();
+
+  private final List<RouteLimiter> limiters = new ArrayList<>();
+
+  private final long idleTimeoutNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final AtomicLong lastSweep;
+
+  public RateLimiter(final RateLimits rateLimits) {
+    this(rateLimits, System::nanoTime);
+  }
+
+  public RateLimiter(final RateLimits rateLimits, final LongSupplier nanoTime) {
+    this.idleTimeoutNanos = rateLimits.idleTimeout().toNanos();
+    this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime");
+    this.lastSweep = new AtomicLong(nanoTime.getAsLong());
+
+    rateLimits.routes().forEach((path, limit) -> {
+      if (limit.capacity() <= 0 || limit.refillPerSecond() <= 0) {
+        throw new IllegalArgumentException("Rate limit for " + path + " needs a positive capacity and refill rate");
+      }
+
+      final var limiter = new RouteLimiter(limit.capacity(), limit.refillPerSecond());
+
+      routes.put(path, limiter);
+      limiters.add(limiter);
+    });
+  }
+
+  // Takes a token from the client's bucket for this path.
+  // Returns ALLOWED, or how many nanoseconds until the next token is available.
+  public long acquire(final String path, final String client) {
+    final var route = routes.find(path);
+
+    if (Objects.isNull(route)) {
+      return ALLOWED;
+    }
+
+    final var now = nanoTime.getAsLong();
+
+    sweepIfDue(now);
+    return route.acquire(client, now);
+  }
+
+  // whole seconds for the Retry-After header, rounded up so the client doesn't come back too early
+  public static long retryAfterSeconds(final long waitNanos) {
+    return Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+  }
+
+  // At most one thread sweeps per idleTimeout, the others don't wait for it
+  private void sweepIfDue(final long now) {
+    final var last = lastSweep.get();
+
+    if (now - last >= idleTimeoutNanos && lastSweep.compareAndSet(last, now)) {
+      limiters.forEach(limiter -> limiter.evictIdle(now, idleTimeoutNanos));
+    }
+  }
+
+  private static final class RouteLimiter {
+
+    // time one token takes to refill
+    private final long emissionNanos;
+
+    // how far ahead of now the full-again time may be, i.e. the room for a burst of capacity requests
+    private final long burstNanos;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private RouteLimiter(final long capacity, final double refillPerSecond) {
+      this.emissionNanos = (long) (Duration.ofSeconds(1).toNanos() / refillPerSecond);
+      this.burstNanos = emissionNanos * capacity;
+    }
+
+    private long acquire(final String client, final long now) {
+      var bucket = buckets.get(client);
+
+      if (Objects.isNull(bucket)) {
+        // a new client starts with a full bucket
+        bucket = buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+      }
+
+      while (true) {
+        final var fullAt = bucket.get();
+        // nanoTime values are only compared by subtracting them, they may overflow
+        final var nextFullAt = (fullAt - now > 0 ? fullAt : now) + emissionNanos;
+        final var wait = nextFullAt - now - burstNanos;
+
+        if (wait > 0) {
+          return wait;
+        }
+
+        if (bucket.compareAndSet(fullAt, nextFullAt)) {
+          return ALLOWED;
+        }
+      }
+    }
+
+    private void evictIdle(final long now, final long idleTimeoutNanos) {
+      buckets.values().removeIf(bucket -> now - bucket.get() > idleTimeoutNanos);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.helloworld.config.security;
+
+import java.util.Objects;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.helloworld.config.audit.AuditEntry;
+import com.example.helloworld.config.audit.AuditLog;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Reactive twin of AuditFilter, added by ReactiveSecurityConfig in front of authentication.
+// The reactive security context isn't visible from here once the chain completes, so the subject is recorded
+// by the JWT authentication converter instead, which finds the AuditEntry in the Reactor context.
+// Records are only offered, an event loop thread never waits for room in the queue.
+final class ReactiveAuditFilter implements WebFilter {
+
+  private final AuditLog auditLog;
+
+  ReactiveAuditFilter(final AuditLog auditLog) {
+    this.auditLog = auditLog;
+  }
+
+  @Override
+  public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+    final var entry = new AuditEntry(System.nanoTime());
+
+    exchange.getAttributes().put(AuditEntry.ATTRIBUTE, entry);
+    return chain.filter(exchange)
+      .contextWrite(context -> context.put(AuditEntry.class, entry))
+      .doFinally(signal -> {
+        final var status = exchange.getResponse().getRawStatusCode();
+
+        auditLog.offer(entry.toRecord(
+          exchange.getRequest().getMethodValue(),
+          ReactiveSecurityConfig.decodedPath(exchange),
+          Objects.nonNull(status) ? status : defaultStatus(signal)
+        ));
+      });
+  }
+
+  // The resource server's JWT authentication converter, SecurityConfig.authenticationToken plus the subject
+  static Mono<JwtAuthenticationToken> authenticationToken(final Jwt jwt) {
+    return Mono.deferContextual(context -> {
+      context.<AuditEntry>getOrEmpty(AuditEntry.class).ifPresent(entry -> entry.subject(jwt.getSubject()));
+      return Mono.just(SecurityConfig.authenticationToken(jwt));
+    });
+  }
+
+  // a response nobody set a status on is a 200, unless the chain failed
+  private static int defaultStatus(final SignalType signal) {
+    return signal == SignalType.ON_ERROR
+      ? HttpStatus.INTERNAL_SERVER_ERROR.value()
+      : HttpStatus.OK.value();
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.helloworld.config.security;
+
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ReactiveErrorHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Reactive twin of ConcurrencyLimitFilter, right behind ReactiveResponseHeadersFilter and well in front of
+// Spring Security's WebFilterChainProxy (-100). A request is in flight until its response completes,
+// a cancelled one (the client went away) frees its place without counting as a latency sample.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@ConditionalOnProperty(
+  prefix = "application.concurrency-limits",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public final class ReactiveConcurrencyLimitFilter implements WebFilter {
+
+  private final ConcurrencyLimiter limiter;
+
+  private final ReactiveErrorHandler errorHandler;
+
+  public ReactiveConcurrencyLimitFilter(
+    final ApplicationProperties applicationProps,
+    final ReactiveErrorHandler errorHandler,
+    final MeterRegistry meterRegistry
+  ) {
+    this.limiter = new ConcurrencyLimiter(applicationProps.concurrencyLimits()).bindTo(meterRegistry);
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+    // decoded like the security matchers, so an encoded path lands in the same group
+    final var group = limiter.group(ReactiveSecurityConfig.decodedPath(exchange));
+
+    if (Objects.isNull(group)) {
+      return chain.filter(exchange);
+    }
+
+    if (!group.tryAcquire()) {
+      return errorHandler.handleOverloaded(exchange);
+    }
+
+    final var started = System.nanoTime();
+
+    return chain.filter(exchange)
+      .doFinally(signal -> {
+        if (signal == SignalType.CANCEL) {
+          group.cancel();
+        } else {
+          group.release(System.nanoTime() - started);
+        }
+      });
+  }
+}
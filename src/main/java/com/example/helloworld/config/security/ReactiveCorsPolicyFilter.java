@@ -0,0 +1,77 @@
+package com.example.helloworld.config.security;
+
+import java.util.Objects;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+// Reactive twin of CorsPolicyFilter: same precomputed answers, in front of the security WebFilter chain
+@Order(ReactiveCorsPolicyFilter.ORDER)
+public final class ReactiveCorsPolicyFilter implements WebFilter {
+
+  // Spring Security's WebFilterChainProxy runs at -100 (WebFluxSecurityConfiguration.WEB_FILTER_CHAIN_FILTER_ORDER,
+  // which isn't public), this goes right before it
+  static final int ORDER = -100 - 1;
+
+  private final CorsPolicy policy;
+
+  public ReactiveCorsPolicyFilter(final CorsConfiguration config) {
+    this.policy = new CorsPolicy(config);
+  }
+
+  @Override
+  public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+    final var request = exchange.getRequest();
+    final var response = exchange.getResponse();
+    final var origin = request.getHeaders().getOrigin();
+
+    response.getHeaders().add(HttpHeaders.VARY, CorsPolicy.VARY);
+
+    if (Objects.isNull(origin)) {
+      return chain.filter(exchange);
+    }
+
+    final var requestMethod = request.getHeaders().getFirst(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD);
+
+    if (request.getMethod() == HttpMethod.OPTIONS && Objects.nonNull(requestMethod)) {
+      final var headers = policy.preflight(
+        origin,
+        requestMethod,
+        request.getHeaders().getFirst(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS)
+      );
+
+      if (Objects.isNull(headers)) {
+        return reject(response);
+      }
+
+      headers.applyTo(response.getHeaders());
+      response.setStatusCode(HttpStatus.OK);
+      return response.setComplete();
+    }
+
+    final var headers = policy.actual(origin);
+
+    if (Objects.nonNull(headers)) {
+      headers.applyTo(response.getHeaders());
+    } else if (CorsUtils.isCorsRequest(request)) {
+      return reject(response);
+    }
+
+    return chain.filter(exchange);
+  }
+
+  private static Mono<Void> reject(final ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.FORBIDDEN);
+    return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(CorsPolicy.REJECTED_BODY)));
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.helloworld.config.security;
+
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ReactiveErrorHandler;
+
+import reactor.core.publisher.Mono;
+
+// Reactive twin of RateLimitFilter. Ordered after Spring Security's WebFilterChainProxy (-100),
+// so the verified authentication is in the reactive security context by the time this runs.
+@Component
+@Order(0)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@ConditionalOnProperty(
+  prefix = "application.rate-limits",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public final class ReactiveRateLimitFilter implements WebFilter {
+
+  private final RateLimiter limiter;
+
+  private final ReactiveErrorHandler errorHandler;
+
+  public ReactiveRateLimitFilter(
+    final ApplicationProperties applicationProps,
+    final ReactiveErrorHandler errorHandler
+  ) {
+    this.limiter = new RateLimiter(applicationProps.rateLimits());
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+    final var request = exchange.getRequest();
+    final var remoteAddress = Objects.nonNull(request.getRemoteAddress())
+      ? request.getRemoteAddress().getAddress().getHostAddress()
+      : "unknown";
+
+    return ReactiveSecurityContextHolder.getContext()
+      .map(SecurityContext::getAuthentication)
+      .map(authentication -> RateLimitFilter.clientKey(authentication, remoteAddress))
+      .defaultIfEmpty(RateLimitFilter.clientKey(null, remoteAddress))
+      .flatMap(client -> {
+        // decoded like the security matchers, so an encoded path can't get around the limit
+        final var wait = limiter.acquire(ReactiveSecurityConfig.decodedPath(exchange), client);
+
+        return wait == RateLimiter.ALLOWED
+          ? chain.filter(exchange)
+          : errorHandler.handleTooManyRequests(exchange, RateLimiter.retryAfterSeconds(wait));
+      });
+  }
+}
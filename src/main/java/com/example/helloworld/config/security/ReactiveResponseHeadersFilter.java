@@ -0,0 +1,36 @@
+package com.example.helloworld.config.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.helloworld.config.ApplicationProperties;
+
+import reactor.core.publisher.Mono;
+
+// Reactive twin of ResponseHeadersFilter: same precomputed headers, added before the exchange goes down the chain
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public final class ReactiveResponseHeadersFilter implements WebFilter {
+
+  private final ResponseHeaderBlocks headers;
+
+  public ReactiveResponseHeadersFilter(final ApplicationProperties applicationProps) {
+    this.headers = new ResponseHeaderBlocks(applicationProps.responseHeaders());
+  }
+
+  @Override
+  public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+    // decoded like the security matchers, so an encoded path gets its route's headers
+    headers.forPath(ReactiveSecurityConfig.decodedPath(exchange))
+      .applyTo(exchange.getResponse().getHeaders());
+
+    return chain.filter(exchange);
+  }
+}
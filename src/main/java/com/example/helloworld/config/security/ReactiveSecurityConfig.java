@@ -0,0 +1,223 @@
+package com.example.helloworld.config.security;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.example.helloworld.config.ApplicationConfig;
+import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ApplicationProperties.TrustedIssuer;
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.ReactiveErrorHandler;
+import com.example.helloworld.config.audit.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Reactive twin of SecurityConfig for the reactive profile: same protected paths from Paths,
+// same CORS rules, same issuer and audience validation, but as a WebFilter chain on Netty.
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Configuration
+@RequiredArgsConstructor
+public class ReactiveSecurityConfig {
+
+  private final OAuth2ResourceServerProperties resourceServerProps;
+
+  private final ApplicationProperties applicationProps;
+
+  private final ReactiveErrorHandler errorHandler;
+
+  // Reads and writes the cached discovery document
+  private final ObjectMapper mapper;
+
+  // Auto-configured by Spring Boot Actuator, scraped through /actuator/prometheus
+  private final MeterRegistry meterRegistry;
+
+  // Revoked token ids, from RevocationConfig
+  private final TokenRevocations revocations;
+
+  // From AuditConfig, absent when auditing is turned off
+  private final ObjectProvider<AuditLog> auditLog;
+
+  @Bean
+  public SecurityWebFilterChain reactiveSecurity(final ServerHttpSecurity http) {
+    auditLog.ifAvailable(audit ->
+      http.addFilterBefore(new ReactiveAuditFilter(audit), SecurityWebFiltersOrder.AUTHENTICATION)
+    );
+
+    return http.authorizeExchange(exchanges ->
+      exchanges
+        .matchers(authenticatedPaths())
+          .access(permissionAuthorization())
+              // All other requests are allowed without authentication
+        .anyExchange()
+          .permitAll()
+    )
+            // CORS is left to reactiveCorsFilter, in front of this chain
+    .oauth2ResourceServer(oauth2ResourceServer ->
+      oauth2ResourceServer
+        .authenticationEntryPoint(errorHandler::handleAuthenticationError)
+        .accessDeniedHandler(errorHandler::handleAccessDenied)
+        .jwt(jwt ->
+          jwt.jwtDecoder(reactiveJwtDecoder())
+            // also hands the subject to the audit filter, when there is one
+            .jwtAuthenticationConverter(ReactiveAuditFilter::authenticationToken)
+        )
+    )
+    .build();
+  }
+
+  // Same CORS rules as the servlet stack, answered before the security chain runs
+  @Bean
+  public ReactiveCorsPolicyFilter reactiveCorsFilter() {
+    return new ReactiveCorsPolicyFilter(ApplicationConfig.apiCorsConfiguration(applicationProps));
+  }
+
+  // NimbusReactiveJwtDecoder fetches and caches the JWK set with a non-blocking WebClient.
+  // Only finding the jwks_uri uses a blocking call, once while starting in eager mode. Deferred mode never calls
+  // the issuer while starting and isn't revalidated here, so a non-Auth0 issuer needs a jwk-set-uri.
+  @Bean
+  public ReactiveJwtDecoder reactiveJwtDecoder() {
+    final var jwtProps = resourceServerProps.getJwt();
+    final var issuer = jwtProps.getIssuerUri();
+    final var discoveryProps = applicationProps.discovery();
+    final var jwksProps = applicationProps.jwks();
+    // RestTemplateBuilder isn't auto-configured in a reactive application
+    final var rest = new RestTemplateBuilder()
+      .setConnectTimeout(jwksProps.fetchTimeout())
+      .setReadTimeout(jwksProps.fetchTimeout())
+      .build();
+    final var metadata = new IssuerDiscovery(
+      rest,
+      issuer,
+      jwtProps.getJwkSetUri(),
+      discoveryProps.cacheFile(),
+      mapper
+    ).resolve(discoveryProps.mode());
+    final var metrics = new AuthMetrics(meterRegistry);
+    final var issuersProps = applicationProps.issuers();
+    // Picked by the token's iss claim like on the servlet stack. NimbusReactiveJwtDecoder holds no threads,
+    // so there's nothing to close when one is evicted
+    final var decoders = new IssuerDecoders<ReactiveJwtDecoder>(
+      issuer,
+      makeReactiveDecoder(metadata.jwkSetUri(), issuer, Set.of(applicationProps.audience()), metrics),
+      issuersProps.trusted(),
+      issuersProps.maximumDecoders(),
+      trusted -> deferredReactiveDecoder(trusted, rest, metrics),
+      decoder -> { }
+    );
+
+    metrics.bindRevocations(revocations);
+    // Same permissions as the servlet decoder, parsed once while decoding
+    return token -> Mono.defer(() -> {
+      final var started = System.nanoTime();
+
+      return decoders.select(token)
+        .decode(token)
+        .doOnSuccess(jwt -> metrics.recordDecode(started))
+        .doOnError(error -> metrics.recordDecodeFailure(started, error))
+        .<Jwt>map(AuthorizedJwt::new);
+    });
+  }
+
+  // NimbusReactiveJwtDecoder fetches and caches the JWK set with a non-blocking WebClient,
+  // with the same validators and metrics as the servlet decoder
+  private ReactiveJwtDecoder makeReactiveDecoder(
+    final URI jwkSetUri,
+    final String issuer,
+    final Set<String> audiences,
+    final AuthMetrics metrics
+  ) {
+    final var decoder = NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri.toString())
+      .jwsAlgorithms(algorithms ->
+        applicationProps.jwks().algorithms().stream()
+          .map(name -> Objects.requireNonNull(SignatureAlgorithm.from(name), "Unsupported JWS algorithm " + name))
+          .forEach(algorithms::add)
+      )
+      .build();
+
+    decoder.setJwtValidator(SecurityConfig.tokenValidator(issuer, audiences, revocations, metrics));
+    return decoder;
+  }
+
+  // Discovering a trusted issuer's jwks_uri is a blocking call, so it runs on the bounded elastic scheduler
+  // instead of the event loop, once. A failed discovery isn't kept, the next token tries again
+  private ReactiveJwtDecoder deferredReactiveDecoder(
+    final TrustedIssuer trusted,
+    final RestOperations rest,
+    final AuthMetrics metrics
+  ) {
+    final var decoder = Mono.fromCallable(() -> {
+      final var jwkSetUri = Objects.nonNull(trusted.jwkSetUri())
+        ? trusted.jwkSetUri()
+        : IssuerMetadata.discover(rest, trusted.issuerUri()).jwkSetUri();
+
+      return makeReactiveDecoder(jwkSetUri, trusted.issuerUri(), Set.copyOf(trusted.audiences()), metrics);
+    })
+      .subscribeOn(Schedulers.boundedElastic())
+      .onErrorMap(error -> new JwtException("Could not load the keys of issuer " + trusted.issuerUri(), error))
+      .cache(built -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+
+    return token -> decoder.flatMap(built -> built.decode(token));
+  }
+
+  // Same required permissions and decision as the servlet chain, on the decoded path
+  private ReactiveAuthorizationManager<AuthorizationContext> permissionAuthorization() {
+    final var manager = new PermissionAuthorizationManager(Paths.endpoints());
+
+    return (authentication, context) -> authentication
+      .map(auth -> manager.decide(auth, decodedPath(context.getExchange())))
+      .defaultIfEmpty(new AuthorizationDecision(false));
+  }
+
+  private ServerWebExchangeMatcher authenticatedPaths() {
+    final var matcher = new PathPrefixRequestMatcher(Paths.authenticatedPaths());
+
+    return exchange -> matcher.matches(decodedPath(exchange))
+      ? MatchResult.match()
+      : MatchResult.notMatch();
+  }
+
+  // The router matches on decoded path segments, so the security check has to as well,
+  // otherwise /api/messages/%70rotected would reach the protected handler unauthenticated.
+  // Matrix parameters (;name=value) are dropped the same way.
+  static String decodedPath(final ServerWebExchange exchange) {
+    final var path = new StringBuilder();
+
+    for (final var element : exchange.getRequest().getPath().pathWithinApplication().elements()) {
+      path.append(element instanceof final PathContainer.PathSegment segment
+        ? segment.valueToMatch()
+        : element.value());
+    }
+
+    return path.toString();
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.helloworld.config.security;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+
+import com.example.helloworld.config.ApplicationProperties;
+
+// The headers from application.response-headers, validated and turned into arrays once at startup.
+// Shared by the servlet and reactive header filters so both stacks send exactly the same headers.
+final class ResponseHeaderBlocks {
+
+  // RFC 7230 token characters, the only ones allowed in a header name
+  private static final Pattern HEADER_NAME = Pattern.compile("[!#$%&'*+.^_`|~0-9A-Za-z-]+");
+
+  // visible characters, spaces and tabs. Anything else (CR/LF especially) could split the response
+  private static final Pattern HEADER_VALUE = Pattern.compile("[\\t\\x20-\\x7e]*");
+
+  private final HeaderBlock defaultHeaders;
+
+  private final Map<String, HeaderBlock> routeHeaders;
+
+  ResponseHeaderBlocks(final ApplicationProperties.ResponseHeaders headerProps) {
+    final var defaults = Objects.requireNonNullElse(headerProps.defaults(), Map.<String, String>of());
+    final var routes = Objects.requireNonNullElse(headerProps.routes(), Map.<String, Map<String, String>>of());
+    final var compiledRoutes = new HashMap<String, HeaderBlock>();
+
+    // a route override is merged onto the defaults. An empty value removes that header for the route
+    routes.forEach((path, overrides) -> {
+      final var merged = new LinkedHashMap<>(defaults);
+
+      merged.putAll(overrides);
+      compiledRoutes.put(path, HeaderBlock.compile(merged));
+    });
+
+    this.defaultHeaders = HeaderBlock.compile(defaults);
+    this.routeHeaders = Map.copyOf(compiledRoutes);
+  }
+
+  HeaderBlock forPath(final String path) {
+    return routeHeaders.getOrDefault(path, defaultHeaders);
+  }
+
+  // An immutable, already validated set of headers. Names and values sit in parallel arrays
+  // so applying them allocates nothing.
+  static final class HeaderBlock {
+
+    private final String[] names;
+
+    private final String[] values;
+
+    private HeaderBlock(final String[] names, final String[] values) {
+      this.names = names;
+      this.values = values;
+    }
+
+    static HeaderBlock compile(final Map<String, String> headers) {
+      final var present = new LinkedHashMap<String, String>();
+
+      headers.forEach((name, value) -> {
+        if (!HEADER_NAME.matcher(name).matches()) {
+          throw new IllegalArgumentException("Invalid response header name: " + name);
+        }
+
+        final var trimmed = Objects.requireNonNullElse(value, "").strip();
+
+        if (!HEADER_VALUE.matcher(trimmed).matches()) {
+          throw new IllegalArgumentException("Invalid value for response header " + name);
+        }
+
+        if (!trimmed.isEmpty()) {
+          present.put(name, trimmed);
+        }
+      });
+
+      return new HeaderBlock(
+        present.keySet().toArray(String[]::new),
+        present.values().toArray(String[]::new)
+      );
+    }
+
+    void applyTo(final HttpServletResponse response) {
+      for (int i = 0; i < names.length; i++) {
+        response.setHeader(names[i], values[i]);
+      }
+    }
+
+    void applyTo(final HttpHeaders headers) {
+      for (int i = 0; i < names.length; i++) {
+        headers.set(names[i], values[i]);
+      }
+    }
+  }
+}
@@ -7,19 +7,32 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 
+import com.example.helloworld.config.ApplicationProperties;
+
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
-public record ResponseHeadersFilter() implements Filter {
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public final class ResponseHeadersFilter implements Filter {
 
   // This is a filter that adds security related features onto an HTTP response
-  // and passes the request and response to the next filter in the chain
+  // and passes the request and response to the next filter in the chain.
+  // The headers come from application.response-headers and are validated and turned into arrays once at startup,
+  // so per request this is a map lookup on the path and a loop over precomputed strings.
+
+  private final ResponseHeaderBlocks headers;
+
+  public ResponseHeadersFilter(final ApplicationProperties applicationProps) {
+    this.headers = new ResponseHeaderBlocks(applicationProps.responseHeaders());
+  }
 
   @Override
   public void doFilter(
@@ -27,15 +40,11 @@ public record ResponseHeadersFilter() implements Filter {
     final ServletResponse response,
     final FilterChain chain
   ) throws IOException, ServletException {
-    if (response instanceof final HttpServletResponse httpResponse) {
-      httpResponse.setIntHeader("X-XSS-Protection", 0);
-      httpResponse.setHeader("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
-      httpResponse.setHeader("X-Frame-Options", "deny");
-      httpResponse.setHeader("X-Content-Type-Options", "nosniff");
-      httpResponse.setHeader("Content-Security-Policy", "default-src 'self'; frame-ancestors 'none';");
-      httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, max-age=0, must-revalidate");
-      httpResponse.setHeader(HttpHeaders.PRAGMA, "no-cache");
-      httpResponse.setIntHeader(HttpHeaders.EXPIRES, 0);
+    if (request instanceof final HttpServletRequest httpRequest
+      && response instanceof final HttpServletResponse httpResponse) {
+      // the same path the security matchers see: context path stripped, decoded and normalized
+      headers.forPath(PathPrefixRequestMatcher.pathWithinApplication(httpRequest))
+        .applyTo(httpResponse);
     }
 
     chain.doFilter(request, response);
@@ -0,0 +1,44 @@
+package com.example.helloworld.config.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.helloworld.config.ApplicationProperties;
+
+import lombok.RequiredArgsConstructor;
+
+// The revocation denylist is shared by the servlet and the reactive decoders, so it lives outside both configs
+@Configuration
+@RequiredArgsConstructor
+public class RevocationConfig {
+
+  private final ApplicationProperties applicationProps;
+
+  @Bean
+  public TokenRevocations tokenRevocations() {
+    final var revocationProps = applicationProps.revocation();
+
+    return new TokenRevocations(revocationProps.expectedEntries(), revocationProps.falsePositiveRate());
+  }
+
+  // Only polls when a source is configured. Spring calls close() on shutdown, which stops the poll thread
+  @Bean
+  @ConditionalOnExpression("!'${application.revocation.source:}'.isEmpty()")
+  public RevocationFeed revocationFeed() {
+    final var revocationProps = applicationProps.revocation();
+    // RestTemplateBuilder isn't auto-configured in a reactive application
+    final var rest = new RestTemplateBuilder()
+      .setConnectTimeout(applicationProps.jwks().fetchTimeout())
+      .setReadTimeout(applicationProps.jwks().fetchTimeout())
+      .build();
+
+    return new RevocationFeed(
+      revocationProps.source(),
+      rest,
+      tokenRevocations(),
+      revocationProps.pollInterval()
+    ).start();
+  }
+}
@@ -0,0 +1,155 @@
+package com.example.helloworld.config.security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+// Keeps TokenRevocations up to date from a file or an HTTP endpoint, polled on a single background thread.
+// Both use the same format, one revoked token per line: "<jti> <exp as epoch seconds>".
+// Updates are incremental:
+//  - file: an append-only file, only the bytes added since the last poll are read.
+//    A file that got shorter was replaced, it's read again from the start.
+//  - http: GET <source>?since=<n>, where n is how many entries were already received.
+//    The endpoint answers with the entries after those, so it's easy to stub with a static list.
+// Each poll also drops entries whose tokens have expired.
+@Log4j2
+public final class RevocationFeed implements AutoCloseable {
+
+  private final URI source;
+
+  private final RestOperations rest;
+
+  private final TokenRevocations revocations;
+
+  private final Duration pollInterval;
+
+  private final ScheduledExecutorService scheduler;
+
+  // bytes read so far for a file, entries received so far for http
+  private long position;
+
+  public RevocationFeed(
+    final URI source,
+    final RestOperations rest,
+    final TokenRevocations revocations,
+    final Duration pollInterval
+  ) {
+    this.source = Objects.requireNonNull(source, "source");
+    this.rest = Objects.requireNonNull(rest, "rest");
+    this.revocations = Objects.requireNonNull(revocations, "revocations");
+    this.pollInterval = pollInterval;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final var thread = new Thread(runnable, "revocation-feed");
+
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public RevocationFeed start() {
+    scheduler.scheduleWithFixedDelay(this::pollQuietly, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    return this;
+  }
+
+  // Only ever called from the feed thread, so position needs no synchronization
+  public void poll() {
+    final var entries = "file".equals(source.getScheme())
+      ? readFile(Path.of(source))
+      : fetch();
+    final var added = revocations.revokeAll(entries);
+    final var purged = revocations.purgeExpired();
+
+    if (added > 0 || purged > 0) {
+      log.info("Token revocations: {} added, {} expired, {} active", added, purged, revocations.size());
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private void pollQuietly() {
+    try {
+      poll();
+    } catch (final RuntimeException e) {
+      // the entries already applied stay in place, the next poll carries on from the same position
+      log.warn("Polling token revocations from {} failed: {}", source, e.getMessage());
+    }
+  }
+
+  private Map<String, Instant> readFile(final Path file) {
+    if (!Files.isReadable(file)) {
+      return Map.of();
+    }
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < position) {
+        position = 0;
+      }
+
+      final var buffer = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, channel.size() - position));
+
+      channel.read(buffer, position);
+
+      final var text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+      // a line that's still being written is left for the next poll
+      final var complete = text.substring(0, text.lastIndexOf('\n') + 1);
+
+      position += complete.getBytes(StandardCharsets.UTF_8).length;
+      return parse(complete);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Map<String, Instant> fetch() {
+    final var uri = UriComponentsBuilder.fromUri(source)
+      .queryParam("since", position)
+      .build(true)
+      .toUri();
+    final var body = Objects.requireNonNullElse(rest.getForObject(uri, String.class), "");
+    final var entries = parse(body);
+
+    position += body.lines().filter(line -> !line.isBlank()).count();
+    return entries;
+  }
+
+  private static Map<String, Instant> parse(final String lines) {
+    final var entries = new HashMap<String, Instant>();
+
+    lines.lines()
+      .map(String::strip)
+      .filter(line -> !line.isEmpty())
+      .forEach(line -> {
+        final var parts = line.split("\\s+");
+
+        try {
+          entries.put(parts[0], Instant.ofEpochSecond(Long.parseLong(parts[1])));
+        } catch (final RuntimeException e) {
+          log.warn("Skipping malformed revocation entry \"{}\"", line);
+        }
+      });
+
+    return entries;
+  }
+}
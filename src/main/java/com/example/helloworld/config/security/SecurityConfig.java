@@ -1,31 +1,59 @@
 package com.example.helloworld.config.security;
 
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
-import org.springframework.security.oauth2.core.OAuth2Error;
-import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
-import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
-import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.web.client.RestOperations;
 
 import com.example.helloworld.config.ApplicationProperties;
+import com.example.helloworld.config.ApplicationProperties.IssuerDiscoveryMode;
+import com.example.helloworld.config.ApplicationProperties.TrustedIssuer;
 import com.example.helloworld.config.GlobalErrorHandler;
 import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.audit.AuditLog;
+import com.example.helloworld.config.security.AuthMetrics.FailureReason;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 
 // This class is configuring the application to act as a Resource Server.
 // The resource server has the endpoints with protected information.
 
+@Log4j2
+@ConditionalOnWebApplication(type = Type.SERVLET) // the reactive profile uses ReactiveSecurityConfig instead
 @Configuration // Tells spring to scan this class for bean definitions
 @RequiredArgsConstructor // Generates constructor requiring all final fields and @NonNull fields.
 // This approach is equivalent to marking each field with @Autowired but is cleaner and follows the recommended practice of using constructor injection
@@ -49,30 +77,49 @@ public class SecurityConfig {
 
   private final GlobalErrorHandler errorHandler;
 
-  // Tells Spring security to ignore all requests to paths except the ones defined
+  // Auto-configured by Spring Boot, used for the discovery and JWKS calls to the issuer
+  private final RestTemplateBuilder restTemplateBuilder;
+
+  // Reads and writes the cached discovery document
+  private final ObjectMapper mapper;
+
+  // Auto-configured by Spring Boot Actuator, scraped through /actuator/prometheus
+  private final MeterRegistry meterRegistry;
+
+  // Revoked token ids, from RevocationConfig
+  private final TokenRevocations revocations;
+
+  // From AuditConfig, absent when auditing is turned off
+  private final ObjectProvider<AuditLog> auditLog;
+
+  // Tells Spring security to ignore all requests to paths except the ones defined as authenticated in Paths
   @Bean
   public WebSecurityCustomizer webSecurity() {
-    final var exclusionRegex = "^(?!%s|%s).*$".formatted(
-      "/api/messages/protected",
-      "/api/messages/admin"
-    );
+    final var authenticated = authenticatedPaths();
 
     return web ->
       web.ignoring()
-        .regexMatchers(exclusionRegex);
+        .requestMatchers(new NegatedRequestMatcher(authenticated));
   }
 
+  // Compiled once from Paths, the single source of truth for which endpoints need authentication
+  @Bean
+  public PathPrefixRequestMatcher authenticatedPaths() {
+    return new PathPrefixRequestMatcher(Paths.authenticatedPaths());
+  }
 
   /**
    * Configures the security filter chain for the application.
    *
    * <ul>
    *   <li>Specifies that requests to /api/messages/protected and /api/messages/admin require authentication.</li>
+   *   <li>Checks the permissions each endpoint declares in Paths, e.g. read:admin-messages for admin.</li>
    *   <li>All other requests are permitted without authentication.</li>
-   *   <li>Sets up CORS (Cross-Origin Resource Sharing) with default settings.</li>
+   *   <li>Leaves CORS (Cross-Origin Resource Sharing) to the filter from ApplicationConfig, before this chain.</li>
    *   <li>Configures the OAuth 2.0 resource server to use JWTs for authentication.</li>
-   *   <li>Specifies a custom error handler for authentication errors.</li>
+   *   <li>Specifies custom error handlers for authentication and permission errors.</li>
    *   <li>Sets up a custom JWT decoder to validate the tokens.</li>
+   *   <li>Adds the audit filter in front of authentication when auditing is on.</li>
    * </ul>
    *
    * @param http The HttpSecurity object to configure.
@@ -82,62 +129,257 @@ public class SecurityConfig {
 
   @Bean // http here gets injected at runtime because this is a bean
   public SecurityFilterChain httpSecurity(final HttpSecurity http) throws Exception {
-    final var messages = Paths.apiPath().messagesPath();
+    // first in the chain after the security context is set up, so it times everything that follows
+    auditLog.ifAvailable(audit -> http.addFilterBefore(new AuditFilter(audit), BearerTokenAuthenticationFilter.class));
 
-    // requests to protected and admin paths need to be authenticated
-    return http.authorizeRequests(authorizeRequests ->
+    // requests to protected and admin paths need to be authenticated, and to hold the permissions
+    // the endpoint declares in Paths (e.g. read:admin-messages for admin)
+    return http.authorizeHttpRequests(authorizeRequests ->
       authorizeRequests
-        .antMatchers(messages.protectedPath().build(), messages.adminPath().build())
-          .authenticated()
+        .requestMatchers(authenticatedPaths())
+          .access(permissionAuthorization())
               // All other requests are allowed without authentication
         .anyRequest()
           .permitAll()
     )
-            // Sets up cors with default settings.
-            // The default CORS configuration will look for a bean of type CorsConfigurationSource.
-    .cors(Customizer.withDefaults())
+            // No .cors() here: CORS is checked once, by the corsFilter from ApplicationConfig in front of this chain,
+            // which also answers preflight requests so they never reach it
             //configures the application as an OAuth 2.0 resource server.
             // This means the application expects incoming requests to have JWTs (JSON Web Tokens) for authentication.
     .oauth2ResourceServer(oauth2ResourceServer ->
       oauth2ResourceServer
               // Sets up custom error handler
         .authenticationEntryPoint(errorHandler::handleAuthenticationError)
-              // And JWT decoder
-        .jwt(jwt -> jwt.decoder(makeJwtDecoder()))
+              // 403 for valid tokens without the required permissions
+        .accessDeniedHandler(errorHandler::handleAccessDenied)
+              // And JWT decoder, plus authorities from the permissions parsed while decoding
+        .jwt(jwt ->
+          jwt.decoder(jwtDecoder())
+            .jwtAuthenticationConverter(SecurityConfig::authenticationToken)
+        )
     )
     .build();
   }
 
+  // Required permissions per endpoint, compiled once from Paths
+  @Bean
+  public PermissionAuthorizationManager permissionAuthorization() {
+    return new PermissionAuthorizationManager(Paths.endpoints());
+  }
+
+  // The decoder is a bean so the cache (and its hit/miss counters) is a single shared instance.
+  // Repeated requests with the same token are answered from the cache instead of re-verifying the signature.
+  // Tokens are cached as AuthorizedJwt, so their permissions are parsed once per token too.
+  @Bean
+  public CachingJwtDecoder jwtDecoder() {
+    final var cacheProps = applicationProps.jwtCache();
+    final var decoders = issuerDecoders();
+    final var metrics = authMetrics();
+    final var cache = new CachingJwtDecoder(
+      token -> new AuthorizedJwt(metrics.decode(decoders.select(token).decoder(), token)),
+      cacheProps.maximumSize(),
+      cacheProps.maximumTtl(),
+      revocations::isRevoked
+    );
+
+    metrics.bindJwtCache(cache);
+    metrics.bindRevocations(revocations);
+    return cache;
+  }
+
+  // One decoder per trusted issuer, picked by the token's iss claim. The primary issuer's is built right away,
+  // the others when their first token arrives. Spring calls close() on shutdown, which stops their refresh threads
+  @Bean
+  public IssuerDecoders<IssuerDecoder> issuerDecoders() {
+    final var issuersProps = applicationProps.issuers();
+
+    return new IssuerDecoders<>(
+      resourceServerProps.getJwt().getIssuerUri(),
+      new IssuerDecoder(makeJwtDecoder(), jwkSetRefresher()),
+      issuersProps.trusted(),
+      issuersProps.maximumDecoders(),
+      this::makeIssuerDecoder,
+      issuerDecoder -> issuerDecoder.keys().close()
+    );
+  }
+
+  @Bean
+  public AuthMetrics authMetrics() {
+    return new AuthMetrics(meterRegistry);
+  }
+
+  // Same principal name as Spring's JwtAuthenticationConverter (the sub claim),
+  // with the interned authority list of the token's permissions instead of one built per request
+  public static JwtAuthenticationToken authenticationToken(final Jwt jwt) {
+    final var permissions = jwt instanceof final AuthorizedJwt authorized
+      ? authorized.permissions()
+      : Permissions.from(jwt);
+
+    return new JwtAuthenticationToken(jwt, permissions.authorities(), jwt.getSubject());
+  }
+
+  // Works out where the issuer's keys live without necessarily calling the issuer during startup
+  @Bean
+  public IssuerDiscovery issuerDiscovery() {
+    final var jwtProps = resourceServerProps.getJwt();
+
+    return new IssuerDiscovery(
+      issuerRestOperations(),
+      jwtProps.getIssuerUri(),
+      jwtProps.getJwkSetUri(),
+      applicationProps.discovery().cacheFile(),
+      mapper
+    );
+  }
+
+  // Keeps the issuer's public keys in memory and refreshes them in the background,
+  // so requests never wait on a JWKS fetch unless they carry a key id we haven't seen yet.
+  // Spring calls close() on shutdown, which stops the refresh thread.
+  @Bean
+  public JwkSetRefresher jwkSetRefresher() {
+    final var jwksProps = applicationProps.jwks();
+    final var mode = applicationProps.discovery().mode();
+    // Find where the issuer publishes its keys. Timed because this used to be a blocking call on every startup
+    final var started = System.nanoTime();
+    final var metadata = issuerDiscovery().resolve(mode);
+    final var elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+    log.info("Resolved issuer metadata in {} ms ({} discovery)", elapsed.toMillis(), mode);
+
+    return new JwkSetRefresher(
+      metadata.jwkSetUri(),
+      issuerRestOperations(),
+      jwksProps.refreshInterval(),
+      jwksProps.minimumRefreshInterval(),
+      jwksProps.fetchTimeout(),
+      authMetrics()
+    ).start();
+  }
+
+  // In deferred mode the metadata we started with may be stale, so fetch the real discovery document
+  // once the app is serving requests. Runs off the startup thread so it never delays readiness.
+  @EventListener(ApplicationReadyEvent.class)
+  public void revalidateIssuerMetadata() {
+    if (applicationProps.discovery().mode() == IssuerDiscoveryMode.DEFERRED) {
+      CompletableFuture.runAsync(() -> issuerDiscovery().revalidate(jwkSetRefresher()));
+    }
+  }
+
   private JwtDecoder makeJwtDecoder() {
     // URI of JWT issuer (entity that creates and signs JWT) (in this case the Auth0 Authorization Server)
     final var issuer = resourceServerProps.getJwt().getIssuerUri();
-    // Make a decoder based on issuer's location (Type NimbusJwtDecoder)
-    final var decoder = JwtDecoders.<NimbusJwtDecoder>fromIssuerLocation(issuer);
-    // Make a JWT validator that checks if JWT's issuer matches provided issuer
-    final var withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
-    // make a delegating token validator (Just a composite of multiple validators).
-    // The way this behaves is that it runs the JWT through both and both return a OAuth2TokenValidatorResult
-    final var tokenValidator = new DelegatingOAuth2TokenValidator<>(withIssuer, this::withAudience);
+
+    return makeJwtDecoder(
+      jwkSetRefresher(),
+      algorithms(),
+      issuer,
+      Set.of(applicationProps.audience()),
+      revocations,
+      authMetrics()
+    );
+  }
+
+  // For the other trusted issuers: same decoder, over a key set of their own.
+  // Runs on the request thread of the issuer's first token, so only that request waits for discovery
+  private IssuerDecoder makeIssuerDecoder(final TrustedIssuer issuer) {
+    try {
+      return makeIssuerDecoder(issuer, applicationProps.jwks());
+    } catch (final RuntimeException e) {
+      // reported like any other key retrieval failure, the next token from this issuer tries again
+      throw new JwtException("Could not load the keys of issuer " + issuer.issuerUri(), e);
+    }
+  }
+
+  private IssuerDecoder makeIssuerDecoder(final TrustedIssuer issuer, final ApplicationProperties.Jwks jwksProps) {
+    final var jwkSetUri = Objects.nonNull(issuer.jwkSetUri())
+      ? issuer.jwkSetUri()
+      : IssuerMetadata.discover(issuerRestOperations(), issuer.issuerUri()).jwkSetUri();
+    final var keys = new JwkSetRefresher(
+      jwkSetUri,
+      issuerRestOperations(),
+      jwksProps.refreshInterval(),
+      jwksProps.minimumRefreshInterval(),
+      jwksProps.fetchTimeout(),
+      authMetrics()
+    );
+    final var decoder = makeJwtDecoder(
+      keys,
+      algorithms(),
+      issuer.issuerUri(),
+      Set.copyOf(issuer.audiences()),
+      revocations,
+      authMetrics()
+    );
+
+    // Loads the keys before the first token is checked against them
+    keys.refresh().join();
+    return new IssuerDecoder(decoder, keys.start());
+  }
+
+  private Set<JWSAlgorithm> algorithms() {
+    return applicationProps.jwks().algorithms().stream()
+      .map(JWSAlgorithm::parse)
+      .collect(Collectors.toSet());
+  }
+
+  // The decoder itself, from any source of keys. Static so the benchmarks can build the exact same decoder
+  // over a locally generated key set.
+  public static NimbusJwtDecoder makeJwtDecoder(
+    final JWKSource<SecurityContext> keySource,
+    final Set<JWSAlgorithm> algorithms,
+    final String issuer,
+    final Set<String> audiences,
+    final TokenRevocations revocations,
+    final AuthMetrics metrics
+  ) {
+    // Picks the verification key for a token from the key source, for the given algorithms only
+    final var keySelector = new JWSVerificationKeySelector<>(algorithms, keySource);
+    final var processor = new DefaultJWTProcessor<SecurityContext>();
+
+    processor.setJWSKeySelector(keySelector);
+    // Nimbus' own claim checks are turned off, the Spring validators below do that job (same as JwtDecoders does)
+    processor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+    // Make a decoder that verifies signatures with the refreshed key set (Type NimbusJwtDecoder)
+    final var decoder = new NimbusJwtDecoder(processor);
 
     // Decoder uses this validator to ensure incoming JWTs are valid
-    decoder.setJwtValidator(tokenValidator);
+    decoder.setJwtValidator(tokenValidator(issuer, audiences, revocations, metrics));
     return decoder;
   }
 
-  // Custom Validator Used in the tokenValidator above. Checks that the JWT's audience matches the expected.
-  // In this case, the audience for this
-  private OAuth2TokenValidatorResult withAudience(final Jwt token) {
-
-    // Validators need custom errors to give. Would later be thrown in SecurityFilterChain
-    final var audienceError = new OAuth2Error(
-      OAuth2ErrorCodes.INVALID_TOKEN,
-      "The token was not issued for the given audience",
-      "https://datatracker.ietf.org/doc/html/rfc6750#section-3.1"
+  // The checks every token goes through after its signature, shared with the reactive decoder.
+  // Same as JwtValidators.createDefaultWithIssuer (timestamps, then issuer) plus the audience and the revocation
+  // denylist, but with each validator counted separately so rejections show up by reason.
+  public static OAuth2TokenValidator<Jwt> tokenValidator(
+    final String issuer,
+    final Set<String> audiences,
+    final TokenRevocations revocations,
+    final AuthMetrics metrics
+  ) {
+    // make a delegating token validator (Just a composite of multiple validators).
+    // The way this behaves is that it runs the JWT through all of them and each returns a OAuth2TokenValidatorResult
+    return new DelegatingOAuth2TokenValidator<>(
+      metrics.counting(FailureReason.EXPIRY, new JwtTimestampValidator()),
+      // checks if JWT's issuer matches provided issuer
+      metrics.counting(FailureReason.ISSUER, new JwtIssuerValidator(issuer)),
+      metrics.counting(FailureReason.AUDIENCE, new AudienceValidator(audiences)),
+      // last, so only otherwise valid tokens are looked up
+      metrics.counting(FailureReason.REVOKED, revocations)
     );
+  }
+
+  private RestOperations issuerRestOperations() {
+    final var timeout = applicationProps.jwks().fetchTimeout();
+
+    return restTemplateBuilder
+      .setConnectTimeout(timeout)
+      .setReadTimeout(timeout)
+      .build();
+  }
+
+  // An issuer's decoder and the key set it owns, closed together when the issuer is evicted from the pool
+  public record IssuerDecoder(JwtDecoder decoder, JwkSetRefresher keys) {
 
-    // audience from application props got injected from .env to application.yml and injected into ApplicationProperties by spring
-    return token.getAudience().contains(applicationProps.audience())
-      ? OAuth2TokenValidatorResult.success()
-      : OAuth2TokenValidatorResult.failure(audienceError);
   }
 }
@@ -0,0 +1,184 @@
+package com.example.helloworld.config.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+// Denylist of revoked token ids (the jti claim), checked as one of the decoder's validators.
+// Nearly every token checked is not revoked, so a Bloom filter answers those without touching the exact set:
+// a clear bit proves the jti was never added. Only possible hits (real ones and the configured false positive rate)
+// go on to the exact set. Reads never lock.
+// An entry is kept until the token it revokes would have expired anyway, then dropped by purgeExpired().
+// Bloom filters can't forget, so purging builds a new filter from what's left and swaps it in.
+// Entries come from RevocationFeed, the writes are synchronized since they're rare.
+public final class TokenRevocations implements OAuth2TokenValidator<Jwt> {
+
+  private static final OAuth2Error REVOKED =
+    new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, "The token has been revoked", null);
+
+  // same leeway JwtTimestampValidator gives exp, so a token can't outlive its revocation entry
+  private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+  private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+  private final int expectedEntries;
+
+  private final double falsePositiveRate;
+
+  private final Clock clock;
+
+  private volatile BloomFilter filter;
+
+  public TokenRevocations(final int expectedEntries, final double falsePositiveRate) {
+    this(expectedEntries, falsePositiveRate, Clock.systemUTC());
+  }
+
+  public TokenRevocations(final int expectedEntries, final double falsePositiveRate, final Clock clock) {
+    if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Needs positive expected entries and a false positive rate between 0 and 1");
+    }
+
+    this.expectedEntries = expectedEntries;
+    this.falsePositiveRate = falsePositiveRate;
+    this.clock = Objects.requireNonNull(clock, "clock");
+    this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+  }
+
+  @Override
+  public OAuth2TokenValidatorResult validate(final Jwt jwt) {
+    return isRevoked(jwt)
+      ? OAuth2TokenValidatorResult.failure(REVOKED)
+      : OAuth2TokenValidatorResult.success();
+  }
+
+  // Also asked by CachingJwtDecoder on every hit, cached tokens don't go through validate
+  public boolean isRevoked(final Jwt jwt) {
+    // tokens without a jti can't be revoked individually
+    final var jti = jwt.getId();
+
+    return Objects.nonNull(jti) && isRevoked(jti);
+  }
+
+  public boolean isRevoked(final String jti) {
+    return filter.mightContain(jti) && revoked.containsKey(jti);
+  }
+
+  // Adds the entries, returns how many of them are new
+  public synchronized int revokeAll(final Map<String, Instant> entries) {
+    final var now = clock.instant();
+    final var bloom = filter;
+    var added = 0;
+
+    for (final var entry : entries.entrySet()) {
+      final var keepUntil = entry.getValue().plus(CLOCK_SKEW);
+
+      if (keepUntil.isAfter(now) && Objects.isNull(revoked.put(entry.getKey(), keepUntil))) {
+        bloom.add(entry.getKey());
+        added++;
+      }
+    }
+
+    return added;
+  }
+
+  // Drops entries whose tokens have expired and rebuilds the filter without them
+  public synchronized int purgeExpired() {
+    final var now = clock.instant();
+    final var sizeBefore = revoked.size();
+
+    revoked.values().removeIf(keepUntil -> !keepUntil.isAfter(now));
+
+    final var purged = sizeBefore - revoked.size();
+
+    if (purged > 0) {
+      final var rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size()), falsePositiveRate);
+
+      revoked.keySet().forEach(rebuilt::add);
+      filter = rebuilt;
+    }
+
+    return purged;
+  }
+
+  public int size() {
+    return revoked.size();
+  }
+
+  private static final class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    // the usual sizing: m = -n ln(p) / ln(2)^2 bits and k = m / n ln(2) hash functions
+    private BloomFilter(final int expectedEntries, final double falsePositiveRate) {
+      final var bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+
+      this.bitCount = (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, bits));
+      this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+      this.words = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private void add(final String value) {
+      final var hash = hash64(value);
+
+      for (var i = 0; i < hashCount; i++) {
+        final var bit = bitIndex(hash, i);
+        final var mask = 1L << bit;
+        final var word = bit >>> 6;
+
+        // bits are only ever set, so a lost race just means setting it again
+        var current = words.get(word);
+
+        while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+          current = words.get(word);
+        }
+      }
+    }
+
+    private boolean mightContain(final String value) {
+      final var hash = hash64(value);
+
+      for (var i = 0; i < hashCount; i++) {
+        final var bit = bitIndex(hash, i);
+
+        if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    // Kirsch-Mitzenmacher: the k indexes come from the two halves of one 64 bit hash
+    private int bitIndex(final long hash, final int i) {
+      final var combined = (int) hash + i * (int) (hash >>> 32);
+
+      return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // 64 bit FNV-1a over the characters, no allocation
+    private static long hash64(final String value) {
+      var hash = 0xcbf29ce484222325L;
+
+      for (var i = 0; i < value.length(); i++) {
+        hash ^= value.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+
+      return hash;
+    }
+  }
+}
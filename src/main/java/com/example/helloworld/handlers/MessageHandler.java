@@ -2,43 +2,107 @@ package com.example.helloworld.handlers;
 
 import static org.springframework.web.servlet.function.ServerResponse.ok;
 
-import org.springframework.cache.annotation.Cacheable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.function.ServerRequest;
 import org.springframework.web.servlet.function.ServerResponse;
 
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.models.MessagePage;
 import com.example.helloworld.services.MessageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
 // This is a handler class that contains methods to process the requests. These methods get called by the router
 // It's almost like the 2nd half of the controller, where the service methods get called.
 // Except services are optional, and you can put your business logic here if you want. But this app does have a service.
+// Responses are served from MessageResponseCache: pre-serialized JSON with an ETag, 304 when the client has it already.
+// The list and export responses change as messages are stored, they're written fresh every time.
+// All of them are gzipped for clients that accept it once they're big enough, see ResponseCompression.
 
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @Component
 @RequiredArgsConstructor
 public class MessageHandler {
 
   private final MessageService messageService;
 
-  @Cacheable
+  private final MessageResponseCache responseCache;
+
+  private final ObjectMapper mapper;
+
+  private final ResponseCompression compression;
+
   public ServerResponse getPublic(final ServerRequest request) {
     final var message = messageService.getPublicMessage();
 
-    return ok().body(message);
+    return responseCache.respond(Paths.apiPath().messagesPath().publicPath().path(), message, request);
   }
 
-  @Cacheable
   public ServerResponse getProtected(final ServerRequest request) {
     final var message = messageService.getProtectedMessage();
 
-    return ok().body(message);
+    return responseCache.respond(Paths.apiPath().messagesPath().protectedPath().path(), message, request);
   }
 
-  @Cacheable
   public ServerResponse getAdmin(final ServerRequest request) {
     final var message = messageService.getAdminMessage();
 
-    return ok().body(message);
+    return responseCache.respond(Paths.apiPath().messagesPath().adminPath().path(), message, request);
+  }
+
+  // ?cursor= the previous page's next, ?limit= the page size. A bad cursor or limit is answered with a 400
+  public ServerResponse list(final ServerRequest request) {
+    final var page = messageService.getPage(
+      request.param("cursor").orElse(null),
+      request.param("limit").orElse(null)
+    );
+
+    final var encoded = compression.encode(json(page), request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+
+    return ok()
+      .contentType(MediaType.APPLICATION_JSON)
+      .headers(encoded::addHeaders)
+      .body(encoded.body());
+  }
+
+  // Written while the repository is read, so neither the messages nor the response body are ever held in full:
+  // memory stays the same for ten messages or ten million
+  public ServerResponse export(final ServerRequest request) {
+    final var gzip = compression.accepts(request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+
+    return ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .headers(headers ->
+        ResponseCompression.addHeaders(headers, gzip ? ResponseCompression.GZIP : null, compression.enabled())
+      )
+      .build((servletRequest, servletResponse) -> {
+        try (var entries = messageService.exportMessages()) {
+          final var out = servletResponse.getOutputStream();
+
+          // closed by Ndjson.write, which writes the gzip trailer
+          Ndjson.write(mapper, entries.iterator(), gzip ? ResponseCompression.gzip(out) : out);
+          return null;
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+  }
+
+  // serialized up front, the size decides whether the page is compressed
+  private byte[] json(final MessagePage page) {
+    try {
+      return mapper.writeValueAsBytes(page);
+    } catch (final JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize response", e);
+    }
   }
 }
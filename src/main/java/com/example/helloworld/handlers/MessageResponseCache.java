@@ -0,0 +1,108 @@
+package com.example.helloworld.handlers;
+
+import static org.springframework.web.servlet.function.ServerResponse.ok;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.example.helloworld.models.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+// Keeps the JSON bytes and a strong ETag for the message last served on each route, so a request doesn't
+// go through Jackson again. The message from the service is compared with the one the entry was built from,
+// so when MessageService content changes the entry is rebuilt on the next request, nothing has to evict it.
+// A client sending the ETag back in If-None-Match gets a 304 without a body.
+// A body big enough to compress is gzipped once too, with an ETag of its own, for clients that accept gzip.
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Component
+@RequiredArgsConstructor
+public class MessageResponseCache {
+
+  private final ObjectMapper mapper;
+
+  private final ResponseCompression compression;
+
+  // one entry per route, keyed by the route's path
+  private final ConcurrentHashMap<String, CachedMessage> responses = new ConcurrentHashMap<>();
+
+  public ServerResponse respond(final String route, final Message message, final ServerRequest request) {
+    final var cached = lookup(route, message);
+    final var negotiated = Objects.nonNull(cached.gzipped());
+    final var gzip = negotiated && compression.accepts(request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+    final var etag = gzip ? cached.gzippedEtag() : cached.etag();
+
+    // a 304 carries the Vary the 200 would have, so caches revalidate the right variant
+    return request.checkNotModified(etag)
+      .map(notModified -> ServerResponse.from(notModified)
+        .headers(headers -> ResponseCompression.addHeaders(headers, null, negotiated))
+        .build())
+      .orElseGet(() ->
+        ok()
+          .eTag(etag)
+          .contentType(MediaType.APPLICATION_JSON)
+          .headers(headers -> ResponseCompression.addHeaders(
+            headers,
+            gzip ? ResponseCompression.GZIP : null,
+            negotiated
+          ))
+          .body(gzip ? cached.gzipped() : cached.body())
+      );
+  }
+
+  private CachedMessage lookup(final String route, final Message message) {
+    final var cached = responses.get(route);
+
+    if (Objects.nonNull(cached) && cached.isFor(message)) {
+      return cached;
+    }
+
+    final var fresh = serialize(message);
+
+    responses.put(route, fresh);
+    return fresh;
+  }
+
+  private CachedMessage serialize(final Message message) {
+    try {
+      final var body = mapper.writeValueAsBytes(message);
+      final var hash = MessageDigest.getInstance("SHA-256").digest(body);
+      final var tag = Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+
+      // the gzipped bytes are another representation, a strong ETag has to tell them apart
+      return compression.compressible(body.length)
+        ? new CachedMessage(message, body, "\"" + tag + "\"", ResponseCompression.gzip(body), "\"" + tag + "-gzip\"")
+        : new CachedMessage(message, body, "\"" + tag + "\"", null, null);
+    } catch (final JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not serialize message", e);
+    }
+  }
+
+  private record CachedMessage(
+    Message message,
+    byte[] body,
+    String etag,
+    @Nullable byte[] gzipped,
+    @Nullable String gzippedEtag
+  ) {
+
+    // identity first, MessageService hands out the same instance while its content doesn't change
+    boolean isFor(final Message candidate) {
+      return message == candidate || message.equals(candidate);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.helloworld.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import com.example.helloworld.models.MessageEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Newline delimited JSON, one entry per line, for the export endpoints of both stacks.
+// Entries go through one generator with its own small buffer, nothing else is kept.
+final class Ndjson {
+
+  // entries between flushes, so the client sees progress without a flush (and a packet) per line
+  static final int BATCH_SIZE = 256;
+
+  private Ndjson() {
+  }
+
+  static void write(
+    final ObjectMapper mapper,
+    final Iterator<MessageEntry> entries,
+    final OutputStream out
+  ) throws IOException {
+    try (var generator = mapper.createGenerator(out)) {
+      // the generator would put a space between root values, the lines are separated by hand instead
+      generator.setRootValueSeparator(null);
+
+      var written = 0;
+
+      while (entries.hasNext()) {
+        generator.writeObject(entries.next());
+        generator.writeRaw('\n');
+
+        if (++written % BATCH_SIZE == 0) {
+          generator.flush();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.helloworld.handlers;
+
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.example.helloworld.models.MessageEntry;
+import com.example.helloworld.services.ReactiveMessageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reactive twin of MessageHandler, called by ReactiveRouter. Nothing here blocks, so a handful of Netty event loop
+// threads serve every connection instead of one thread per in-flight request.
+// Responses are gzipped like on the servlet stack, see ResponseCompression.
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveMessageHandler {
+
+  private final ReactiveMessageService messageService;
+
+  private final ObjectMapper mapper;
+
+  private final ResponseCompression compression;
+
+  public Mono<ServerResponse> getPublic(final ServerRequest request) {
+    return messageService.getPublicMessage()
+      .flatMap(message -> respond(message, request));
+  }
+
+  public Mono<ServerResponse> getProtected(final ServerRequest request) {
+    return messageService.getProtectedMessage()
+      .flatMap(message -> respond(message, request));
+  }
+
+  public Mono<ServerResponse> getAdmin(final ServerRequest request) {
+    return messageService.getAdminMessage()
+      .flatMap(message -> respond(message, request));
+  }
+
+  public Mono<ServerResponse> list(final ServerRequest request) {
+    return messageService.getPage(request.queryParam("cursor").orElse(null), request.queryParam("limit").orElse(null))
+      .flatMap(page -> respond(page, request));
+  }
+
+  // Same lines as the servlet export, a batch of entries per buffer. The next batch is only read from the
+  // repository once the previous one has been written, so memory stays flat however many messages there are
+  public Mono<ServerResponse> export(final ServerRequest request) {
+    final var gzip = compression.accepts(request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+    // one encoder per subscription, the gzip stream runs across all of the response's batches
+    final var body = Flux.defer(() -> {
+      final var encoder = new ExportEncoder(gzip);
+
+      return messageService.exportMessages()
+        .buffer(Ndjson.BATCH_SIZE)
+        .map(encoder::batch)
+        .concatWith(Mono.fromSupplier(encoder::finish));
+    });
+
+    return ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .headers(headers ->
+        ResponseCompression.addHeaders(headers, gzip ? ResponseCompression.GZIP : null, compression.enabled())
+      )
+      .body(BodyInserters.fromDataBuffers(body));
+  }
+
+  // Serialized up front like the servlet stack's responses, the size decides whether the body is compressed
+  private Mono<ServerResponse> respond(final Object value, final ServerRequest request) {
+    final byte[] json;
+
+    try {
+      json = mapper.writeValueAsBytes(value);
+    } catch (final JsonProcessingException e) {
+      return Mono.error(new IllegalStateException("Could not serialize response", e));
+    }
+
+    final var encoded = compression.encode(json, request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+
+    return ok()
+      .contentType(MediaType.APPLICATION_JSON)
+      .headers(encoded::addHeaders)
+      .bodyValue(encoded.body());
+  }
+
+  // Turns the export's batches into buffers. With gzip every batch is flushed out of the compressor on its own,
+  // so the client can decode each one as it arrives, and finish() adds the gzip trailer
+  private final class ExportEncoder {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Nullable
+    private final OutputStream gzip;
+
+    private ExportEncoder(final boolean gzip) {
+      try {
+        this.gzip = gzip ? ResponseCompression.gzip(out) : null;
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private DataBuffer batch(final List<MessageEntry> batch) {
+      try {
+        if (Objects.isNull(gzip)) {
+          Ndjson.write(mapper, batch.iterator(), out);
+        } else {
+          // Ndjson.write closes what it writes to, the gzip stream has to stay open for the next batch
+          Ndjson.write(mapper, batch.iterator(), StreamUtils.nonClosing(gzip));
+          gzip.flush();
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return take();
+    }
+
+    @Nullable
+    private DataBuffer finish() {
+      if (Objects.isNull(gzip)) {
+        return null;
+      }
+
+      try {
+        gzip.close();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return take();
+    }
+
+    private DataBuffer take() {
+      final var bytes = out.toByteArray();
+
+      out.reset();
+      return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+  }
+}
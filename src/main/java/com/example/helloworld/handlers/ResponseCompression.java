@@ -0,0 +1,138 @@
+package com.example.helloworld.handlers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.example.helloworld.config.ApplicationProperties;
+
+// Content-Encoding negotiation for the message handlers of both stacks, from application.compression.
+// gzip only: every client and proxy speaks it, and it's in the JDK. A response is compressed when the client's
+// Accept-Encoding allows gzip and the body is at least minimumResponseSize, small bodies go out as they are.
+// Streamed responses (the export) have no size up front, they're compressed whenever the client accepts it.
+@Component
+public final class ResponseCompression {
+
+  static final String GZIP = "gzip";
+
+  private final boolean enabled;
+
+  private final long minimumResponseSize;
+
+  public ResponseCompression(final ApplicationProperties applicationProps) {
+    final var compression = applicationProps.compression();
+
+    this.enabled = compression.enabled();
+    this.minimumResponseSize = compression.minimumResponseSize().toBytes();
+  }
+
+  boolean enabled() {
+    return enabled;
+  }
+
+  // Whether the Accept-Encoding values allow gzip, e.g. "gzip, deflate, br". A q of 0 rules it out,
+  // and "*" stands for gzip unless gzip is listed itself
+  boolean accepts(final List<String> acceptEncoding) {
+    if (!enabled) {
+      return false;
+    }
+
+    Double gzip = null;
+    Double any = null;
+
+    for (final var value : acceptEncoding) {
+      for (final var coding : value.split(",")) {
+        final var parameters = coding.split(";");
+        final var name = parameters[0].trim().toLowerCase(Locale.ROOT);
+
+        if (name.equals(GZIP)) {
+          gzip = quality(parameters);
+        } else if (name.equals("*")) {
+          any = quality(parameters);
+        }
+      }
+    }
+
+    final var chosen = Objects.nonNull(gzip) ? gzip : any;
+
+    return Objects.nonNull(chosen) && chosen > 0.0;
+  }
+
+  // Worth compressing at all, whatever the client accepts. Decides whether a response varies by Accept-Encoding
+  boolean compressible(final int length) {
+    return enabled && length >= minimumResponseSize;
+  }
+
+  // The body as it should go out to a client sending these Accept-Encoding values
+  Encoded encode(final byte[] body, final List<String> acceptEncoding) {
+    if (!compressible(body.length)) {
+      return new Encoded(body, null, false);
+    }
+
+    return accepts(acceptEncoding)
+      ? new Encoded(gzip(body), GZIP, true)
+      : new Encoded(body, null, true);
+  }
+
+  static byte[] gzip(final byte[] body) {
+    final var out = new ByteArrayOutputStream(body.length / 4 + 64);
+
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write(body);
+    } catch (final IOException e) {
+      // only writes to memory
+      throw new UncheckedIOException(e);
+    }
+
+    return out.toByteArray();
+  }
+
+  // Flushing it flushes what has been compressed so far, so a streamed response still arrives batch by batch
+  static OutputStream gzip(final OutputStream out) throws IOException {
+    return new GZIPOutputStream(out, true);
+  }
+
+  // The response headers of a negotiated response: Vary whenever the body depends on Accept-Encoding,
+  // so shared caches keep the variants apart
+  static void addHeaders(final HttpHeaders headers, @Nullable final String contentEncoding, final boolean negotiated) {
+    if (negotiated) {
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    if (Objects.nonNull(contentEncoding)) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+    }
+  }
+
+  private static double quality(final String[] parameters) {
+    for (var i = 1; i < parameters.length; i++) {
+      final var parameter = parameters[i].trim();
+
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (final NumberFormatException e) {
+          return 0.0;
+        }
+      }
+    }
+
+    return 1.0;
+  }
+
+  record Encoded(byte[] body, @Nullable String contentEncoding, boolean negotiated) {
+
+    void addHeaders(final HttpHeaders headers) {
+      ResponseCompression.addHeaders(headers, contentEncoding, negotiated);
+    }
+  }
+}
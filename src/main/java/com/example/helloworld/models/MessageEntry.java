@@ -0,0 +1,6 @@
+package com.example.helloworld.models;
+
+// A stored message. Ids start at 1 and follow the order messages were added in, listing pages go by them
+public record MessageEntry(long id, String text) {
+
+}
@@ -0,0 +1,10 @@
+package com.example.helloworld.models;
+
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+// One page of the message listing. next is the cursor for the following page, null on the last one
+public record MessagePage(List<MessageEntry> messages, @Nullable String next) {
+
+}
@@ -0,0 +1,245 @@
+package com.example.helloworld.repositories;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.example.helloworld.models.MessageEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.log4j.Log4j2;
+
+// Entries appended to a newline delimited JSON file, one {"id":..,"text":..} per line. Line n holds id n.
+// Only a sparse index stays in memory: the byte offset of every INDEX_STRIDE-th line, 8 bytes per 1024 entries.
+// A page seeks to the nearest indexed line before the cursor, skips at most INDEX_STRIDE - 1 lines and reads limit
+// more, so it costs the same at the end of a huge file as at the start. Streams read the file as they're consumed.
+// Appends are serialized and written as whole lines. Readers stop at the last id that was complete when they
+// started, so they never see a line that's still being written. Appends aren't forced to disk one by one.
+@Log4j2
+public final class FileMessageRepository implements MessageRepository, AutoCloseable {
+
+  private static final int INDEX_STRIDE = 1024;
+
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+
+  private final ObjectReader reader;
+
+  private final ObjectWriter writer;
+
+  private final FileChannel channel;
+
+  // written under the lock by append(), read through the snapshot
+  private long[] offsets;
+
+  private volatile Snapshot snapshot;
+
+  private FileMessageRepository(final Path file, final ObjectMapper mapper, final FileChannel channel) {
+    this.file = file;
+    this.reader = mapper.readerFor(MessageEntry.class);
+    this.writer = mapper.writerFor(MessageEntry.class);
+    this.channel = channel;
+  }
+
+  // Scans the file once to count its lines and build the index. A last line without its newline was cut off
+  // by a crash while it was written, it's dropped
+  public static FileMessageRepository open(final Path file, final ObjectMapper mapper) {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+
+      final var channel = FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      );
+      final var repository = new FileMessageRepository(file, mapper, channel);
+
+      repository.scan();
+      return repository;
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not open the message store " + file, e);
+    }
+  }
+
+  @Override
+  public synchronized MessageEntry append(final String text) {
+    final var current = snapshot;
+    final var entry = new MessageEntry(current.lastId() + 1, text);
+
+    try {
+      // Jackson escapes control characters in strings, so the JSON never contains a raw newline
+      final var json = writer.writeValueAsBytes(entry);
+      final var line = ByteBuffer.allocate(json.length + 1)
+        .put(json)
+        .put((byte) '\n')
+        .flip();
+      var position = current.size();
+
+      while (line.hasRemaining()) {
+        position += channel.write(line, position);
+      }
+
+      if ((entry.id() - 1) % INDEX_STRIDE == 0) {
+        index(entry.id(), current.size());
+      }
+
+      snapshot = new Snapshot(entry.id(), position, offsets);
+      return entry;
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not append to the message store " + file, e);
+    }
+  }
+
+  @Override
+  public List<MessageEntry> page(final long afterId, final int limit) {
+    final var current = snapshot;
+
+    if (limit <= 0 || afterId >= current.lastId()) {
+      return List.of();
+    }
+
+    try (var entries = read(current, afterId)) {
+      return entries.limit(limit).toList();
+    }
+  }
+
+  @Override
+  public Stream<MessageEntry> stream(final long afterId) {
+    final var current = snapshot;
+
+    return afterId >= current.lastId()
+      ? Stream.empty()
+      : read(current, afterId);
+  }
+
+  @Override
+  public long size() {
+    return snapshot.lastId();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // Entries after afterId up to the snapshot's last id. afterId has to be below that last id
+  private Stream<MessageEntry> read(final Snapshot current, final long afterId) {
+    final var block = (int) (afterId / INDEX_STRIDE);
+    final var firstId = (long) block * INDEX_STRIDE + 1;
+
+    try {
+      final var channel = FileChannel.open(file, StandardOpenOption.READ);
+
+      try {
+        channel.position(current.offsets()[block]);
+      } catch (final IOException e) {
+        channel.close();
+        throw e;
+      }
+
+      final var lines = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+
+      try {
+        for (var id = firstId; id <= afterId; id++) {
+          lines.readLine();
+        }
+      } catch (final IOException e) {
+        lines.close();
+        throw e;
+      }
+
+      return lines.lines()
+        .limit(current.lastId() - afterId)
+        .map(this::parse)
+        .onClose(() -> {
+          try {
+            lines.close();
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not read the message store " + file, e);
+    }
+  }
+
+  private MessageEntry parse(final String line) {
+    try {
+      return reader.readValue(line);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Malformed line in the message store " + file, e);
+    }
+  }
+
+  private void scan() throws IOException {
+    final var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    var position = 0L;
+    var lines = 0L;
+    var complete = 0L;
+
+    // the first line starts at 0
+    offsets = new long[16];
+
+    while (true) {
+      buffer.clear();
+
+      final var read = channel.read(buffer, position);
+
+      if (read < 0) {
+        break;
+      }
+
+      for (var i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          lines++;
+          complete = position + i + 1;
+
+          if (lines % INDEX_STRIDE == 0) {
+            index(lines + 1, complete);
+          }
+        }
+      }
+
+      position += read;
+    }
+
+    if (complete < channel.size()) {
+      log.warn("Dropping an incomplete last line from the message store {}", file);
+      channel.truncate(complete);
+    }
+
+    snapshot = new Snapshot(lines, complete, offsets);
+    log.info("Message store {} holds {} messages", file, lines);
+  }
+
+  // offset of the line holding id, for ids right after a multiple of INDEX_STRIDE
+  private void index(final long id, final long offset) {
+    final var slot = (int) ((id - 1) / INDEX_STRIDE);
+
+    if (slot >= offsets.length) {
+      offsets = Arrays.copyOf(offsets, offsets.length * 2);
+    }
+
+    offsets[slot] = offset;
+  }
+
+  // What readers go by: entries up to lastId, the file's length up to the end of that entry, and the index.
+  // The offsets array may be shared with later snapshots, which only write slots past this one's entries
+  private record Snapshot(long lastId, long size, long[] offsets) {
+
+  }
+}
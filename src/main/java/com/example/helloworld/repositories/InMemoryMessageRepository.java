@@ -0,0 +1,49 @@
+package com.example.helloworld.repositories;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import com.example.helloworld.models.MessageEntry;
+
+// Entries in a sorted map by id, so a page is a seek to the cursor and a walk of limit entries, however many
+// come before it. Appends take a lock so ids show up in order and a reader never skips one that's still
+// being added, reads don't lock.
+public final class InMemoryMessageRepository implements MessageRepository {
+
+  private final ConcurrentSkipListMap<Long, MessageEntry> entries = new ConcurrentSkipListMap<>();
+
+  // Ids count up from 1 without gaps, so the last one is also the count. Set after the entry is in the map,
+  // so size() never counts one a reader can't see yet. The map's own size() walks every entry
+  private volatile long lastId;
+
+  @Override
+  public synchronized MessageEntry append(final String text) {
+    final var entry = new MessageEntry(lastId + 1, text);
+
+    entries.put(entry.id(), entry);
+    lastId = entry.id();
+    return entry;
+  }
+
+  @Override
+  public List<MessageEntry> page(final long afterId, final int limit) {
+    return entries.tailMap(afterId, false)
+      .values()
+      .stream()
+      .limit(limit)
+      .toList();
+  }
+
+  @Override
+  public Stream<MessageEntry> stream(final long afterId) {
+    return entries.tailMap(afterId, false)
+      .values()
+      .stream();
+  }
+
+  @Override
+  public long size() {
+    return lastId;
+  }
+}
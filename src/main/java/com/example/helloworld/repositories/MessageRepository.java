@@ -0,0 +1,23 @@
+package com.example.helloworld.repositories;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.example.helloworld.models.MessageEntry;
+
+// Where MessageService keeps the stored messages. Entries are only ever added, ids count up from 1,
+// so a position in the listing is just the last id seen and pages stay stable while messages are added.
+// Implementations: InMemoryMessageRepository and FileMessageRepository, picked by application.messages.store
+public interface MessageRepository {
+
+  MessageEntry append(String text);
+
+  // up to limit entries with an id above afterId, in id order. afterId 0 starts at the beginning
+  List<MessageEntry> page(long afterId, int limit);
+
+  // Every entry with an id above afterId, in id order, read as the stream is consumed rather than up front.
+  // Entries added after the call may be missing. The stream has to be closed
+  Stream<MessageEntry> stream(long afterId);
+
+  long size();
+}
@@ -0,0 +1,11 @@
+package com.example.helloworld.services;
+
+// A listing request with a cursor that wasn't handed out by the API, or a page size out of range. Answered with a 400
+public final class InvalidPageRequestException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public InvalidPageRequestException(final String message) {
+    super(message);
+  }
+}
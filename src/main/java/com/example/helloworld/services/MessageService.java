@@ -1,28 +1,102 @@
 package com.example.helloworld.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import com.example.helloworld.config.ApplicationProperties;
 import com.example.helloworld.models.Message;
+import com.example.helloworld.models.MessageEntry;
+import com.example.helloworld.models.MessagePage;
+import com.example.helloworld.repositories.MessageRepository;
 
-// A note. Nowhere in this app are admin and protected treated differently, which is confusing given it looks like they were trying to implement Role-based access.
+// Admin and protected only differ in who may call them: admin also needs the read:admin-messages permission,
+// which is enforced by the security config from the permissions declared in Paths.
+// The messages never change, so the same instances are handed out every time.
+// The stored messages behind the list and export endpoints come from the MessageRepository.
 @Service
-public record MessageService() {
+public record MessageService(MessageRepository repository, ApplicationProperties applicationProps) {
 
-  public Message getPublicMessage() {
-    final var text = "This is a public message.";
+  private static final Message PUBLIC_MESSAGE = Message.from("This is a public message.");
+
+  private static final Message PROTECTED_MESSAGE = Message.from("This is a protected message.");
 
-    return Message.from(text);
+  private static final Message ADMIN_MESSAGE = Message.from("This is an admin message.");
+
+  public Message getPublicMessage() {
+    return PUBLIC_MESSAGE;
   }
 
   public Message getProtectedMessage() {
-    final var text = "This is a protected message.";
-
-    return Message.from(text);
+    return PROTECTED_MESSAGE;
   }
 
   public Message getAdminMessage() {
-    final var text = "This is an admin message.";
+    return ADMIN_MESSAGE;
+  }
+
+  // cursor is the previous page's next, null for the first page. limit is the page size, null for the default.
+  // The cursor is the last id on the previous page, so a page costs the same however deep into the listing it is
+  public MessagePage getPage(@Nullable final String cursor, @Nullable final String limit) {
+    final var messagesProps = applicationProps.messages();
+    final var pageSize = Objects.isNull(limit)
+      ? messagesProps.defaultPageSize()
+      : parseLimit(limit, messagesProps.maximumPageSize());
+    final var afterId = Objects.isNull(cursor)
+      ? 0L
+      : decodeCursor(cursor);
+    final var messages = repository.page(afterId, pageSize);
+
+    if (messages.isEmpty()) {
+      return new MessagePage(messages, null);
+    }
+
+    final var lastId = messages.get(messages.size() - 1).id();
+
+    return new MessagePage(messages, lastId < repository.size() ? encodeCursor(lastId) : null);
+  }
+
+  // Every stored message, read while the caller consumes them. The stream has to be closed
+  public Stream<MessageEntry> exportMessages() {
+    return repository.stream(0L);
+  }
+
+  private static int parseLimit(final String limit, final int maximum) {
+    try {
+      final var pageSize = Integer.parseInt(limit);
+
+      if (pageSize > 0 && pageSize <= maximum) {
+        return pageSize;
+      }
+    } catch (final NumberFormatException e) {
+      // reported below like an out of range size
+    }
+
+    throw new InvalidPageRequestException("limit has to be between 1 and " + maximum);
+  }
+
+  // Opaque to clients so the listing can change how it pages without breaking them
+  private static String encodeCursor(final long lastId) {
+    return Base64.getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static long decodeCursor(final String cursor) {
+    try {
+      final var lastId = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+
+      if (lastId > 0) {
+        return lastId;
+      }
+    } catch (final IllegalArgumentException e) {
+      // not base64, or not a number (NumberFormatException is an IllegalArgumentException)
+    }
 
-    return Message.from(text);
+    throw new InvalidPageRequestException("Invalid cursor");
   }
 }
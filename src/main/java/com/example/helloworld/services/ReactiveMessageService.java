@@ -0,0 +1,45 @@
+package com.example.helloworld.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import com.example.helloworld.models.Message;
+import com.example.helloworld.models.MessageEntry;
+import com.example.helloworld.models.MessagePage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Reactive signatures over the same messages as MessageService, used by the reactive profile.
+// The stored messages may come from a file, which blocks, so those calls run on the bounded elastic scheduler
+// instead of the event loop.
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public record ReactiveMessageService(MessageService messageService) {
+
+  public Mono<Message> getPublicMessage() {
+    return Mono.fromSupplier(messageService::getPublicMessage);
+  }
+
+  public Mono<Message> getProtectedMessage() {
+    return Mono.fromSupplier(messageService::getProtectedMessage);
+  }
+
+  public Mono<Message> getAdminMessage() {
+    return Mono.fromSupplier(messageService::getAdminMessage);
+  }
+
+  public Mono<MessagePage> getPage(@Nullable final String cursor, @Nullable final String limit) {
+    return Mono.fromCallable(() -> messageService.getPage(cursor, limit))
+      .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  // Pulled as the response is written, and the repository's stream is closed when the Flux ends or is cancelled
+  public Flux<MessageEntry> exportMessages() {
+    return Flux.fromStream(messageService::exportMessages)
+      .subscribeOn(Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Through the same SpringApplication as main, with the required variables only in a .env file, so they reach
+// the DotEnvSafeCheck through spring-dotenv alone. If the check ran before spring-dotenv, it would exit the JVM
+class HelloWorldApplicationTest {
+
+  @TempDir
+  Path dotEnvDir;
+
+  @Test
+  void startsWithTheVariablesFromDotEnv() throws Exception {
+    try (var issuer = LocalIssuer.start()) {
+      Files.writeString(
+        dotEnvDir.resolve(".env"),
+        String.join(
+          "\n",
+          "PORT=0",
+          "CLIENT_ORIGIN_URL=" + LocalApplication.CLIENT_ORIGIN,
+          "AUTH0_DOMAIN=tenant.example.com",
+          "AUTH0_AUDIENCE=" + LocalIssuer.AUDIENCE
+        )
+      );
+
+      try (var context = HelloWorldApplication.application().run(
+        "--.env.directory=" + dotEnvDir,
+        "--management.server.port=0",
+        "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.issuerUri(),
+        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+        "--logging.level.root=warn"
+      )) {
+        final var environment = context.getEnvironment();
+
+        assertThat(environment.getProperty("application.audience")).isEqualTo(LocalIssuer.AUDIENCE);
+        assertThat(environment.getProperty("application.client-origin-url")).isEqualTo(LocalApplication.CLIENT_ORIGIN);
+        assertThat(LocalApplication.port(context)).isPositive();
+      }
+    }
+  }
+}
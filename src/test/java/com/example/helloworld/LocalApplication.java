@@ -0,0 +1,63 @@
+package com.example.helloworld;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// The whole application on a free port, trusting a LocalIssuer instead of the Auth0 tenant, for the tests,
+// the benchmarks and the load test. Rate limits are off so a test can send as much as it likes.
+// Command line arguments win over the ${env.*} placeholders in application.yml, so no .env file is needed.
+// Args override the defaults with the same name, e.g. "--application.rate-limits.enabled=true". Spring would
+// bind both values of a repeated option as a list, so the overridden defaults are left out
+public final class LocalApplication {
+
+  public static final String CLIENT_ORIGIN = "http://localhost:4040";
+
+  private LocalApplication() {
+  }
+
+  public static ConfigurableApplicationContext start(final LocalIssuer issuer, final String... args) {
+    return start(issuer, WebApplicationType.SERVLET, args);
+  }
+
+  // REACTIVE runs the app like the reactive profile does, on Netty
+  public static ConfigurableApplicationContext start(
+    final LocalIssuer issuer,
+    final WebApplicationType type,
+    final String... args
+  ) {
+    final var defaults = Stream.of(
+      "--server.port=0",
+      "--management.server.port=0",
+      "--application.rate-limits.enabled=false",
+      "--application.audience=" + LocalIssuer.AUDIENCE,
+      "--application.client-origin-url=" + CLIENT_ORIGIN,
+      "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.issuerUri(),
+      "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+      "--logging.level.root=warn"
+    );
+
+    final var overridden = Stream.of(args).map(LocalApplication::optionName).collect(Collectors.toSet());
+
+    return new SpringApplicationBuilder(HelloWorldApplication.class)
+      .web(type)
+      .run(
+        Stream.concat(defaults.filter(arg -> !overridden.contains(optionName(arg))), Stream.of(args))
+          .toArray(String[]::new)
+      );
+  }
+
+  private static String optionName(final String arg) {
+    final var equals = arg.indexOf('=');
+
+    return equals < 0 ? arg : arg.substring(0, equals);
+  }
+
+  public static int port(final ConfigurableApplicationContext context) {
+    return ((WebServerApplicationContext) context).getWebServer().getPort();
+  }
+}
@@ -0,0 +1,205 @@
+package com.example.helloworld;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.lang.Nullable;
+
+import com.example.helloworld.config.Permission;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// A stand-in for the Auth0 tenant on localhost: serves the OpenID discovery document and the JWK set
+// for a locally generated RSA key, and signs tokens with it. No network or real tenant needed.
+// The signing key can be rotated, like Auth0 does: the JWK set then holds the new key and the previous one,
+// so tokens signed before the rotation stay valid while new ones carry a key id the app hasn't seen yet.
+public final class LocalIssuer implements AutoCloseable {
+
+  public static final String AUDIENCE = "https://hello-world.example.com";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String DEFAULT_SUBJECT = "auth0|benchmark";
+
+  private final HttpServer server;
+
+  private final AtomicInteger generation = new AtomicInteger();
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  // replaced together by rotate(), read by the JWK set endpoint and mint()
+  private volatile Keys keys;
+
+  private volatile ScheduledExecutorService rotation;
+
+  private LocalIssuer(final RSAKey key, final HttpServer server) {
+    this.keys = new Keys(key, null);
+    this.server = server;
+  }
+
+  public static LocalIssuer start() throws IOException, JOSEException {
+    final var key = generateKey("local");
+    final var server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    final var issuer = new LocalIssuer(key, server);
+
+    server.createContext("/.well-known/openid-configuration", exchange -> issuer.respond(exchange, issuer.discovery()));
+    server.createContext("/.well-known/jwks.json", exchange -> issuer.respond(exchange, issuer.jwkSet()));
+    server.start();
+    return issuer;
+  }
+
+  // A new signing key with a new key id. The one it replaces is still published until the next rotation
+  public RSAKey rotate() {
+    final var key = generateKey("local-" + generation.incrementAndGet());
+
+    keys = new Keys(key, keys.current());
+    return key;
+  }
+
+  // Rotates on a background thread until close()
+  public LocalIssuer rotateEvery(final Duration interval) {
+    final var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final var thread = new Thread(runnable, "local-issuer-rotation");
+
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    scheduler.scheduleAtFixedRate(this::rotate, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    rotation = scheduler;
+    return this;
+  }
+
+  public String issuerUri() {
+    return "http://127.0.0.1:%d/".formatted(server.getAddress().getPort());
+  }
+
+  public String jwkSetUri() {
+    return issuerUri() + ".well-known/jwks.json";
+  }
+
+  // Discovery and JWK set requests served so far
+  public int requests() {
+    return requests.get();
+  }
+
+  // The key tokens are signed with right now
+  public RSAKey key() {
+    return keys.current();
+  }
+
+  public String mint(final String audience, final Duration ttl) {
+    return mint(key(), issuerUri(), audience, ttl);
+  }
+
+  // claims are added to (or replace) the defaults, e.g. "sub", "permissions" or "jti"
+  public String mint(final String audience, final Duration ttl, final Map<String, Object> claims) {
+    return mint(key(), issuerUri(), audience, ttl, claims);
+  }
+
+  public static String mint(final RSAKey key, final String issuer, final String audience, final Duration ttl) {
+    return mint(key, issuer, audience, ttl, Map.of());
+  }
+
+  public static String mint(
+    final RSAKey key,
+    final String issuer,
+    final String audience,
+    final Duration ttl,
+    final Map<String, Object> claims
+  ) {
+    final var now = Instant.now();
+    final var builder = new JWTClaimsSet.Builder()
+      .issuer(issuer)
+      .audience(audience)
+      .subject(DEFAULT_SUBJECT)
+      // every permission, so the admin route answers 200 like the others
+      .claim("permissions", Arrays.stream(Permission.values()).map(Permission::claimValue).toList())
+      .issueTime(Date.from(now))
+      .expirationTime(Date.from(now.plus(ttl)));
+
+    claims.forEach(builder::claim);
+
+    final var header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build();
+    final var jwt = new SignedJWT(header, builder.build());
+
+    try {
+      jwt.sign(new RSASSASigner(key));
+    } catch (final JOSEException e) {
+      throw new IllegalStateException("Could not sign token", e);
+    }
+
+    return jwt.serialize();
+  }
+
+  // A new RSA key. Nothing publishes it unless an issuer signs with it, so it also makes tokens that don't verify
+  public static RSAKey generateKey(final String keyId) {
+    try {
+      return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    } catch (final JOSEException e) {
+      throw new IllegalStateException("Could not generate an RSA key", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (Objects.nonNull(rotation)) {
+      rotation.shutdownNow();
+    }
+
+    server.stop(0);
+  }
+
+  private String discovery() throws IOException {
+    return MAPPER.writeValueAsString(Map.of(
+      "issuer", issuerUri(),
+      "jwks_uri", jwkSetUri()
+    ));
+  }
+
+  private String jwkSet() {
+    final var current = keys;
+
+    return Objects.nonNull(current.previous())
+      ? new JWKSet(List.of(current.current().toPublicJWK(), current.previous().toPublicJWK())).toString()
+      : new JWKSet(current.current().toPublicJWK()).toString();
+  }
+
+  private void respond(final HttpExchange exchange, final String json) throws IOException {
+    final var body = json.getBytes(StandardCharsets.UTF_8);
+
+    requests.incrementAndGet();
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+
+    try (var out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private record Keys(RSAKey current, @Nullable RSAKey previous) {
+
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.helloworld.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.helloworld.LocalApplication;
+import com.example.helloworld.LocalIssuer;
+
+// The header rules on their own, then both stacks behind the public route's rate limit, which is per client IP:
+// a caller that isn't a trusted proxy mustn't get a fresh bucket by sending another X-Forwarded-For
+class ForwardedHeaderHandlerTest {
+
+  private static final String LOOPBACK = "127\\.0\\.0\\.1|0:0:0:0:0:0:0:1";
+
+  private static LocalIssuer issuer;
+
+  private final ForwardedHeaderHandler handler = new ForwardedHeaderHandler("10\\.0\\.0\\.5|10\\.0\\.0\\.6");
+
+  @BeforeAll
+  static void startIssuer() throws Exception {
+    issuer = LocalIssuer.start();
+  }
+
+  @AfterAll
+  static void stopIssuer() {
+    issuer.close();
+  }
+
+  @Test
+  void theClientIsTheLastAddressNoTrustedProxyAdded() {
+    assertThat(handler.clientAddress(List.of("203.0.113.7"))).isEqualTo("203.0.113.7");
+    assertThat(handler.clientAddress(List.of("203.0.113.7, 10.0.0.6"))).isEqualTo("203.0.113.7");
+  }
+
+  // the client sent its own X-Forwarded-For and the proxy appended the real address
+  @Test
+  void ignoresWhatTheClientPutInFront() {
+    assertThat(handler.clientAddress(List.of("198.51.100.1, 198.51.100.2", "203.0.113.7"))).isEqualTo("203.0.113.7");
+  }
+
+  @Test
+  void onlyTrustedProxiesLeavesTheFirstOne() {
+    assertThat(handler.clientAddress(List.of("10.0.0.5, 10.0.0.6"))).isEqualTo("10.0.0.5");
+    assertThat(handler.clientAddress(List.of())).isNull();
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+  void untrustedCallersCantPickTheirAddress(final WebApplicationType stack) throws Exception {
+    try (var context = start(stack, "")) {
+      final var port = LocalApplication.port(context);
+
+      assertThat(getPublic(port, "198.51.100.1")).isEqualTo(200);
+      assertThat(getPublic(port, "198.51.100.2")).isEqualTo(200);
+      assertThat(getPublic(port, "198.51.100.3")).isEqualTo(429);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+  void trustedProxiesForwardTheClientAddress(final WebApplicationType stack) throws Exception {
+    try (var context = start(stack, LOOPBACK)) {
+      final var port = LocalApplication.port(context);
+
+      assertThat(getPublic(port, "198.51.100.1")).isEqualTo(200);
+      assertThat(getPublic(port, "198.51.100.2")).isEqualTo(200);
+      assertThat(getPublic(port, "198.51.100.3")).isEqualTo(200);
+      // what a client wrote in front of the proxy's entry doesn't count
+      assertThat(getPublic(port, "192.0.2.1, 198.51.100.1")).isEqualTo(200);
+      assertThat(getPublic(port, "192.0.2.2, 198.51.100.1")).isEqualTo(429);
+    }
+  }
+
+  // two requests per client, and no refill while the test runs
+  private static ConfigurableApplicationContext start(
+    final WebApplicationType stack,
+    final String trustedProxies
+  ) {
+    return LocalApplication.start(
+      issuer,
+      stack,
+      "--server.forward-headers-strategy=native",
+      "--application.trusted-proxies=" + trustedProxies,
+      "--application.rate-limits.enabled=true",
+      "--application.rate-limits.routes[/api/messages/public].capacity=2",
+      "--application.rate-limits.routes[/api/messages/public].refill-per-second=0.001"
+    );
+  }
+
+  private static int getPublic(final int port, final String forwardedFor) throws Exception {
+    final var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/messages/public"))
+      .header(ForwardedHeaderHandler.X_FORWARDED_FOR, forwardedFor)
+      .GET()
+      .build();
+
+    return HttpClient.newHttpClient().send(request, BodyHandlers.discarding()).statusCode();
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.helloworld.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.helloworld.models.MessageEntry;
+import com.example.helloworld.repositories.InMemoryMessageRepository;
+
+class MessageStoreConfigTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void seedsAnEmptyStoreLineByLine() throws Exception {
+    final var seedFile = Files.writeString(dir.resolve("messages.txt"), "first\n\n  \nsecond\nthird, with ünïcode\n");
+    final var repository = new InMemoryMessageRepository();
+
+    MessageStoreConfig.seed(repository, seedFile);
+
+    assertThat(repository.size()).isEqualTo(3);
+    assertThat(repository.page(0, 10))
+      .containsExactly(
+        new MessageEntry(1, "first"),
+        new MessageEntry(2, "second"),
+        new MessageEntry(3, "third, with ünïcode")
+      );
+  }
+
+  @Test
+  void leavesAStoreWithMessagesAlone() throws Exception {
+    final var seedFile = Files.writeString(dir.resolve("messages.txt"), "seeded\n");
+    final var repository = new InMemoryMessageRepository();
+
+    repository.append("already there");
+    MessageStoreConfig.seed(repository, seedFile);
+
+    assertThat(repository.size()).isEqualTo(1);
+    assertThat(repository.page(0, 10)).containsExactly(new MessageEntry(1, "already there"));
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.helloworld.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+// Tomcat is on the classpath too, the reactive profile has to end up on Netty anyway
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = {
+    "env.AUTH0_DOMAIN=tenant.invalid",
+    "env.AUTH0_AUDIENCE=https://api.invalid",
+    "env.CLIENT_ORIGIN_URL=http://localhost:4040",
+    "management.server.port=0",
+    "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://127.0.0.1:9/.well-known/jwks.json"
+  }
+)
+@ActiveProfiles("reactive")
+class ReactiveServerConfigTest {
+
+  @Autowired
+  private ReactiveWebServerApplicationContext context;
+
+  @Test
+  void reactiveProfileRunsOnNetty() {
+    assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.helloworld.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.WebApplicationType;
+
+import com.example.helloworld.LocalApplication;
+import com.example.helloworld.LocalIssuer;
+
+// Both stacks, so a customizer that never reaches its server factory shows up here
+class TransportConfigTest {
+
+  private static LocalIssuer issuer;
+
+  @BeforeAll
+  static void startIssuer() throws Exception {
+    issuer = LocalIssuer.start();
+  }
+
+  @AfterAll
+  static void stopIssuer() {
+    issuer.close();
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+  void h2cModeUpgradesToHttp2(final WebApplicationType stack) throws Exception {
+    try (var context = LocalApplication.start(issuer, stack, "--application.transport.mode=h2c")) {
+      final var response = getPublic(LocalApplication.port(context));
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+  void http1ModeStaysOnHttp11(final WebApplicationType stack) throws Exception {
+    try (var context = LocalApplication.start(issuer, stack, "--application.transport.mode=http1")) {
+      final var response = getPublic(LocalApplication.port(context));
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_1_1);
+    }
+  }
+
+  // the JDK client asks for HTTP/2 with an Upgrade: h2c request and falls back to HTTP/1.1 if it's ignored
+  private static HttpResponse<String> getPublic(final int port) throws Exception {
+    final var client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .build();
+    final var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/messages/public"))
+      .GET()
+      .build();
+
+    return client.send(request, BodyHandlers.ofString());
+  }
+}
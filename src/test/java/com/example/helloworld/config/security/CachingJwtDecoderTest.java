@@ -0,0 +1,87 @@
+package com.example.helloworld.config.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+// The delegate stands in for signature check and validators: the token is its own jti, and it rejects revoked ones
+class CachingJwtDecoderTest {
+
+  private final TokenRevocations revocations = new TokenRevocations(1000, 0.01);
+
+  private final AtomicInteger verifications = new AtomicInteger();
+
+  @Test
+  void answersRepeatedTokensFromTheCache() {
+    final var decoder = decoder(() -> { });
+
+    decoder.decode("token-1");
+    decoder.decode("token-1");
+
+    assertThat(verifications.get()).isEqualTo(1);
+    assertThat(decoder.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void rejectsATokenRevokedAfterItWasCached() {
+    final var decoder = decoder(() -> { });
+
+    decoder.decode("token-1");
+    decoder.decode("token-2");
+    revoke("token-1");
+
+    assertThatThrownBy(() -> decoder.decode("token-1")).isInstanceOf(BadJwtException.class);
+    // the other tokens stay cached
+    decoder.decode("token-2");
+    assertThat(verifications.get()).isEqualTo(3);
+    assertThat(decoder.hitCount()).isEqualTo(1);
+  }
+
+  // The revocation lands after the validators passed but before the token is stored
+  @Test
+  void rejectsATokenRevokedWhileItWasVerified() {
+    final var decoder = decoder(() -> revoke("token-1"));
+
+    decoder.decode("token-1");
+
+    assertThatThrownBy(() -> decoder.decode("token-1")).isInstanceOf(BadJwtException.class);
+  }
+
+  private CachingJwtDecoder decoder(final Runnable afterValidation) {
+    return new CachingJwtDecoder(
+      token -> {
+        verifications.incrementAndGet();
+
+        if (revocations.isRevoked(token)) {
+          throw new BadJwtException("The token has been revoked");
+        }
+
+        afterValidation.run();
+        return jwt(token);
+      },
+      100,
+      Duration.ofMinutes(5),
+      revocations::isRevoked
+    );
+  }
+
+  private void revoke(final String jti) {
+    revocations.revokeAll(Map.of(jti, Instant.now().plus(Duration.ofHours(1))));
+  }
+
+  private static Jwt jwt(final String token) {
+    return Jwt.withTokenValue(token)
+      .header("alg", "RS256")
+      .jti(token)
+      .expiresAt(Instant.now().plus(Duration.ofHours(1)))
+      .build();
+  }
+}
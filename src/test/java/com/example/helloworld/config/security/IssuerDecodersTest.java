@@ -0,0 +1,176 @@
+package com.example.helloworld.config.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.helloworld.LocalIssuer;
+import com.example.helloworld.config.ApplicationProperties.TrustedIssuer;
+import com.nimbusds.jose.jwk.RSAKey;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Pools JwkSetRefreshers the way SecurityConfig pools its decoders, closing one when it's evicted.
+// The key sets live on hosts that don't resolve: their background fetches fail, which nothing here depends on
+class IssuerDecodersTest {
+
+  private static final String PRIMARY = "https://primary.invalid/";
+
+  private static final RSAKey KEY = LocalIssuer.generateKey("test");
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final List<JwkSetRefresher> built = new CopyOnWriteArrayList<>();
+
+  private final List<JwkSetRefresher> evicted = new CopyOnWriteArrayList<>();
+
+  // the first build of issuer a waits for this when set
+  private volatile CountDownLatch holdBuildOfA;
+
+  private final JwkSetRefresher primary = refresher(new TrustedIssuer(PRIMARY, null, List.of()));
+
+  private final IssuerDecoders<JwkSetRefresher> decoders = new IssuerDecoders<>(
+    PRIMARY,
+    primary,
+    List.of(trusted("a"), trusted("b")),
+    1,
+    issuer -> {
+      final var hold = holdBuildOfA;
+
+      if (Objects.nonNull(hold) && issuer.equals(trusted("a"))) {
+        holdBuildOfA = null;
+        awaitQuietly(hold);
+      }
+
+      final var refresher = refresher(issuer);
+
+      built.add(refresher);
+      return refresher;
+    },
+    refresher -> {
+      evicted.add(refresher);
+      refresher.close();
+    }
+  );
+
+  @AfterEach
+  void close() {
+    decoders.close();
+    primary.close();
+  }
+
+  @Test
+  void primaryIssuerNeedsNoPooledDecoder() {
+    assertThat(decoders.select(token(PRIMARY))).isSameAs(primary);
+    assertThat(decoders.size()).isZero();
+  }
+
+  @Test
+  void buildsEachTrustedIssuersDecoderOnce() {
+    final var first = decoders.select(token(trusted("a").issuerUri()));
+
+    assertThat(decoders.select(token(trusted("a").issuerUri()))).isSameAs(first);
+    assertThat(built).containsExactly(first);
+  }
+
+  @Test
+  void rejectsUnconfiguredIssuersWithoutBuildingAnything() {
+    assertThatThrownBy(() -> decoders.select(token("https://unconfigured.invalid/")))
+      .isInstanceOf(IssuerDecoders.UntrustedIssuerException.class);
+    assertThat(built).isEmpty();
+  }
+
+  @Test
+  void evictionClosesTheLeastRecentlyUsedRefresherAndRemovesItsGauge() throws Exception {
+    final var a = decoders.select(token(trusted("a").issuerUri()));
+
+    assertThat(stalenessGauge("issuer-a.invalid")).isTrue();
+
+    // lastUsed is System.nanoTime(), make sure b's is later
+    Thread.sleep(1);
+
+    final var b = decoders.select(token(trusted("b").issuerUri()));
+
+    assertThat(decoders.size()).isEqualTo(1);
+    assertThat(evicted).containsExactly(a);
+    assertThat(stalenessGauge("issuer-a.invalid")).isFalse();
+    assertThat(stalenessGauge("issuer-b.invalid")).isTrue();
+    assertThat(decoders.select(token(trusted("b").issuerUri()))).isSameAs(b);
+  }
+
+  // b evicts a while a's decoder is still being built: that decoder is closed, not handed out from a dead entry
+  @Test
+  void aDecoderBuiltAfterItsEntryWasEvictedIsClosed() throws Exception {
+    final var hold = new CountDownLatch(1);
+    final var caller = Executors.newSingleThreadExecutor();
+
+    holdBuildOfA = hold;
+
+    try {
+      final var a = caller.submit(() -> decoders.select(token(trusted("a").issuerUri())));
+
+      while (decoders.size() == 0) {
+        Thread.sleep(1);
+      }
+
+      Thread.sleep(1);
+      decoders.select(token(trusted("b").issuerUri()));
+      hold.countDown();
+
+      final var selected = a.get(10, TimeUnit.SECONDS);
+
+      // the first build of a was closed, the caller got a second one from a fresh entry
+      assertThat(built).hasSize(3);
+      assertThat(evicted).contains(built.get(1));
+      assertThat(selected).isNotSameAs(built.get(1)).isSameAs(built.get(2));
+      // every refresher built is either still pooled or closed
+      assertThat(evicted).hasSize(built.size() - decoders.size());
+    } finally {
+      hold.countDown();
+      caller.shutdownNow();
+    }
+  }
+
+  private boolean stalenessGauge(final String host) {
+    return Objects.nonNull(registry.find("auth.jwks.staleness").tag("host", host).gauge());
+  }
+
+  private JwkSetRefresher refresher(final TrustedIssuer issuer) {
+    return new JwkSetRefresher(
+      URI.create(issuer.issuerUri() + ".well-known/jwks.json"),
+      new RestTemplate(),
+      Duration.ofHours(1),
+      Duration.ofHours(1),
+      Duration.ofSeconds(1),
+      new AuthMetrics(registry)
+    ).start();
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static TrustedIssuer trusted(final String name) {
+    return new TrustedIssuer("https://issuer-" + name + ".invalid/", null, List.of(LocalIssuer.AUDIENCE));
+  }
+
+  private static String token(final String issuer) {
+    return LocalIssuer.mint(KEY, issuer, LocalIssuer.AUDIENCE, Duration.ofHours(1));
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.helloworld.config.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestOperations;
+
+import com.example.helloworld.config.ApplicationProperties.IssuerDiscoveryMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class IssuerDiscoveryTest {
+
+  private static final String ISSUER = "https://tenant.eu.auth0.com/";
+
+  @TempDir
+  Path cacheDir;
+
+  private final RestOperations rest = mock(RestOperations.class);
+
+  @Test
+  void deferredStartsFromTheConfiguredJwkSetUri() {
+    final var metadata = discovery("https://keys.example.com/jwks.json").resolve(IssuerDiscoveryMode.DEFERRED);
+
+    assertThat(metadata.jwkSetUri()).isEqualTo(URI.create("https://keys.example.com/jwks.json"));
+    verifyNoInteractions(rest);
+  }
+
+  @Test
+  void deferredStartsFromTheCachedDocument() throws Exception {
+    Files.writeString(
+      cacheDir.resolve("issuer-metadata.json"),
+      "{\"issuer\":\"" + ISSUER + "\",\"jwks_uri\":\"https://tenant.eu.auth0.com/moved/jwks.json\"}"
+    );
+
+    final var metadata = discovery(null).resolve(IssuerDiscoveryMode.DEFERRED);
+
+    assertThat(metadata.jwkSetUri()).isEqualTo(URI.create("https://tenant.eu.auth0.com/moved/jwks.json"));
+    verifyNoInteractions(rest);
+  }
+
+  // a fresh pod: nothing configured, nothing cached, and still no call to the issuer while starting
+  @Test
+  void deferredWithoutCacheAssumesAuth0sKeySetLocation() {
+    final var metadata = discovery(null).resolve(IssuerDiscoveryMode.DEFERRED);
+
+    assertThat(metadata.issuer()).isEqualTo(ISSUER);
+    assertThat(metadata.jwkSetUri()).isEqualTo(URI.create("https://tenant.eu.auth0.com/.well-known/jwks.json"));
+    verifyNoInteractions(rest);
+  }
+
+  private IssuerDiscovery discovery(final String jwkSetUri) {
+    return new IssuerDiscovery(rest, ISSUER, jwkSetUri, cacheDir.resolve("issuer-metadata.json"), new ObjectMapper());
+  }
+}
@@ -0,0 +1,232 @@
+package com.example.helloworld.config.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.helloworld.LocalIssuer;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Against a stub JWKS endpoint on localhost that can change its keys, slow down or fail
+class JwkSetRefresherTest {
+
+  private static final Duration LONG = Duration.ofHours(1);
+
+  private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  private volatile String jwkSet = keySet("k1");
+
+  private volatile int status = 200;
+
+  private volatile long delayMillis;
+
+  private HttpServer server;
+
+  private JwkSetRefresher refresher;
+
+  @BeforeEach
+  void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/jwks.json", this::serve);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @AfterEach
+  void stop() {
+    if (Objects.nonNull(refresher)) {
+      refresher.close();
+    }
+
+    server.stop(0);
+  }
+
+  @Test
+  void loadsTheKeysInTheBackgroundRightAway() throws Exception {
+    refresher = refresher(LONG, LONG).start();
+
+    awaitTrue(() -> fetches.get() == 1 && hasKey("k1"));
+    assertThat(refresher.get(select("k1"), null)).extracting(JWK::getKeyID).containsExactly("k1");
+  }
+
+  @Test
+  void refreshesOnSchedule() throws Exception {
+    refresher = refresher(Duration.ofMillis(100), LONG).start();
+    awaitTrue(() -> hasKey("k1"));
+
+    jwkSet = keySet("k2");
+
+    awaitTrue(() -> hasKey("k2"));
+    assertThat(fetches.get()).isGreaterThanOrEqualTo(2);
+  }
+
+  // Not started, so the only fetches are the early ones an unknown kid asks for
+  @Test
+  void unknownKidRefreshesAtMostOncePerMinimumInterval() throws Exception {
+    refresher = refresher(LONG, Duration.ofMillis(500));
+    jwkSet = keySet("k1", "k2");
+
+    assertThat(refresher.get(select("k2"), null)).extracting(JWK::getKeyID).containsExactly("k2");
+    assertThat(fetches.get()).isEqualTo(1);
+
+    // forged kids right after: answered from memory, the issuer isn't asked again
+    for (var i = 0; i < 20; i++) {
+      assertThat(refresher.get(select("forged-" + i), null)).isEmpty();
+    }
+
+    assertThat(fetches.get()).isEqualTo(1);
+
+    Thread.sleep(600);
+
+    assertThat(refresher.get(select("forged"), null)).isEmpty();
+    assertThat(refresher.get(select("forged"), null)).isEmpty();
+    assertThat(fetches.get()).isEqualTo(2);
+  }
+
+  @Test
+  void concurrentUnknownKidsShareOneFetch() throws Exception {
+    refresher = refresher(LONG, LONG);
+    jwkSet = keySet("k1", "k2");
+    delayMillis = 300;
+
+    final var callers = Executors.newFixedThreadPool(10);
+    final var ready = new CountDownLatch(1);
+    final var results = new ArrayList<Future<List<JWK>>>();
+
+    try {
+      for (var i = 0; i < 10; i++) {
+        results.add(callers.submit(() -> {
+          ready.await();
+          return refresher.get(select("k2"), null);
+        }));
+      }
+
+      ready.countDown();
+
+      for (final var result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).extracting(JWK::getKeyID).containsExactly("k2");
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+
+    assertThat(fetches.get()).isEqualTo(1);
+  }
+
+  @Test
+  void keepsServingTheLastGoodKeysWhileTheIssuerFails() throws Exception {
+    refresher = refresher(LONG, Duration.ofMillis(1)).start();
+    awaitTrue(() -> hasKey("k1"));
+
+    final var loadedAt = refresher.lastSuccessfulRefresh();
+
+    status = 503;
+
+    assertThatThrownBy(() -> refresher.refresh().join()).isInstanceOf(CompletionException.class);
+    Thread.sleep(5);
+    // an unknown kid still tries the issuer, gets the 503 and falls back to what's in memory
+    assertThat(refresher.get(select("k2"), null)).isEmpty();
+    assertThat(fetches.get()).isEqualTo(3);
+    assertThat(refresher.get(select("k1"), null)).extracting(JWK::getKeyID).containsExactly("k1");
+    assertThat(refresher.currentKeys().getKeyByKeyId("k1")).isNotNull();
+    assertThat(refresher.lastSuccessfulRefresh()).isEqualTo(loadedAt);
+
+    // the gauge holds the refresher itself, so it keeps reading after a collection
+    System.gc();
+
+    final var staleness = registry.get("auth.jwks.staleness").gauge().value();
+
+    assertThat(staleness).isNotNaN().isGreaterThanOrEqualTo(0.0);
+  }
+
+  private JwkSetRefresher refresher(final Duration refreshInterval, final Duration minimumRefreshInterval) {
+    return new JwkSetRefresher(
+      URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/jwks.json"),
+      new RestTemplate(),
+      refreshInterval,
+      minimumRefreshInterval,
+      FETCH_TIMEOUT,
+      new AuthMetrics(registry)
+    );
+  }
+
+  private boolean hasKey(final String keyId) {
+    return Objects.nonNull(refresher.currentKeys().getKeyByKeyId(keyId));
+  }
+
+  private void serve(final HttpExchange exchange) throws IOException {
+    fetches.incrementAndGet();
+
+    try {
+      Thread.sleep(delayMillis);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    final var body = (status == 200 ? jwkSet : "{\"error\":\"unavailable\"}").getBytes(StandardCharsets.UTF_8);
+
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+
+    try (var out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static JWKSelector select(final String keyId) {
+    return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+  }
+
+  private static String keySet(final String... keyIds) {
+    final var keys = new ArrayList<JWK>();
+
+    for (final var keyId : keyIds) {
+      keys.add(LocalIssuer.generateKey(keyId).toPublicJWK());
+    }
+
+    return new JWKSet(keys).toString();
+  }
+
+  private static void awaitTrue(final BooleanSupplier condition) throws InterruptedException {
+    final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("Condition not met within 10 s");
+      }
+
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.helloworld.config.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.http.HttpHeaders;
+
+import com.example.helloworld.LocalApplication;
+import com.example.helloworld.LocalIssuer;
+
+// The app trusts two local issuers, each with its own keys and audience, and is sent tokens from a third
+class MultiIssuerTest {
+
+  private static final String SECOND_AUDIENCE = "https://second-tenant.example.com";
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  private LocalIssuer primary;
+
+  private LocalIssuer second;
+
+  private LocalIssuer unconfigured;
+
+  @BeforeEach
+  void startIssuers() throws Exception {
+    primary = LocalIssuer.start();
+    second = LocalIssuer.start();
+    unconfigured = LocalIssuer.start();
+  }
+
+  @AfterEach
+  void stopIssuers() {
+    primary.close();
+    second.close();
+    unconfigured.close();
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+  void acceptsBothConfiguredIssuersAndRejectsOthersWithoutCallingThem(final WebApplicationType stack)
+    throws Exception {
+    try (var context = LocalApplication.start(
+      primary,
+      stack,
+      "--application.issuers.trusted[0].issuer-uri=" + second.issuerUri(),
+      "--application.issuers.trusted[0].audiences=" + SECOND_AUDIENCE
+    )) {
+      final var port = LocalApplication.port(context);
+
+      assertThat(getProtected(port, primary.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1)))).isEqualTo(200);
+      assertThat(getProtected(port, second.mint(SECOND_AUDIENCE, Duration.ofHours(1)))).isEqualTo(200);
+      // each issuer's token only counts for its own audience
+      assertThat(getProtected(port, second.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1)))).isEqualTo(401);
+      assertThat(getProtected(port, unconfigured.mint(LocalIssuer.AUDIENCE, Duration.ofHours(1)))).isEqualTo(401);
+      // the trusted issuer was asked for its discovery document and keys, the other one never was
+      assertThat(second.requests()).isPositive();
+      assertThat(unconfigured.requests()).isZero();
+    }
+  }
+
+  private int getProtected(final int port, final String token) throws Exception {
+    final var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/messages/protected"))
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+      .build();
+
+    return client.send(request, BodyHandlers.discarding()).statusCode();
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.helloworld.handlers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Objects;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import com.example.helloworld.LocalApplication;
+import com.example.helloworld.LocalIssuer;
+
+class MessageResponseCacheTest {
+
+  private static LocalIssuer issuer;
+
+  private static ConfigurableApplicationContext context;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  // every body counts as big enough, so the small public message has a gzipped variant too
+  @BeforeAll
+  static void start() throws Exception {
+    issuer = LocalIssuer.start();
+    context = LocalApplication.start(issuer, "--application.compression.minimum-response-size=0");
+  }
+
+  @AfterAll
+  static void stop() {
+    context.close();
+    issuer.close();
+  }
+
+  @Test
+  void gzippedVariantHasItsOwnEtag() throws Exception {
+    final var plain = get(null, null);
+    final var gzipped = get(ResponseCompression.GZIP, null);
+
+    assertThat(plain.statusCode()).isEqualTo(200);
+    assertThat(plain.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    assertThat(gzipped.statusCode()).isEqualTo(200);
+    assertThat(gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue(ResponseCompression.GZIP);
+    assertThat(gzipped.headers().firstValue(HttpHeaders.ETAG))
+      .isNotEqualTo(plain.headers().firstValue(HttpHeaders.ETAG));
+    assertThat(plain.headers().allValues(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+    assertThat(gzipped.headers().allValues(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+  }
+
+  // RFC 9110: a 304 carries the Vary the 200 would have had
+  @Test
+  void notModifiedKeepsVary() throws Exception {
+    final var etag = get(ResponseCompression.GZIP, null).headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+    final var revalidated = get(ResponseCompression.GZIP, etag);
+
+    assertThat(revalidated.statusCode()).isEqualTo(304);
+    assertThat(revalidated.headers().firstValue(HttpHeaders.ETAG)).hasValue(etag);
+    assertThat(revalidated.headers().allValues(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+  }
+
+  private HttpResponse<byte[]> get(final String acceptEncoding, final String ifNoneMatch) throws Exception {
+    final var request = HttpRequest.newBuilder(
+      URI.create("http://127.0.0.1:" + LocalApplication.port(context) + "/api/messages/public")
+    );
+
+    if (Objects.nonNull(acceptEncoding)) {
+      request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    }
+
+    if (Objects.nonNull(ifNoneMatch)) {
+      request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+
+    return client.send(request.build(), BodyHandlers.ofByteArray());
+  }
+}
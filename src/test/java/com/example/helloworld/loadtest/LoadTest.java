@@ -0,0 +1,369 @@
+package com.example.helloworld.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.http.HttpHeaders;
+
+import com.example.helloworld.LocalApplication;
+import com.example.helloworld.LocalIssuer;
+import com.example.helloworld.config.Paths;
+import com.example.helloworld.config.Paths.ApiPaths.MessagesPaths.MessagesEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.jwk.RSAKey;
+
+// End-to-end load on one machine, without network or an Auth0 tenant: the app on a real port (servlet or reactive),
+// a LocalIssuer serving discovery and a rotating JWK set, and an open-loop client that sends requests at a fixed
+// rate across the public, protected, admin, list and export routes, whether or not the earlier ones have been
+// answered. The message store is seeded with load.messages generated messages, so list pages are full and the export
+// streams all of them.
+// A share of the authenticated requests carry tokens that must be rejected (expired, wrong audience, unknown signer,
+// malformed). A 401 for any other token is counted as unexpected, e.g. a key rotation the app didn't pick up in time.
+// Requests go through a WireCounter relay, which counts the connections the client opened and the bytes both ways,
+// to compare HTTP/1.1 with HTTP/2 (h2c) and runs with and without Accept-Encoding: gzip.
+// The client shares the machine with the app, so compare runs with each other rather than with production.
+// Run with ./gradlew loadTest, the settings are listed next to the task in build.gradle
+public final class LoadTest {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final int SUBJECTS = 100;
+
+  private static final List<String> WORDS = List.of(
+    "token", "issuer", "audience", "request", "latency", "client", "server", "message", "permission", "scope",
+    "refresh", "rotate", "key", "signature", "header", "route", "export", "page", "cursor", "limit",
+    "the", "a", "of", "to", "and", "with", "from", "every", "after", "before", "quickly", "again"
+  );
+
+  // closer than this to the due time, the sender spins instead of parking
+  private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final HttpClient client;
+
+  private final String baseUri;
+
+  private final List<MessagesEndpoint> routes = List.of(
+    Paths.apiPath().messagesPath().publicPath(),
+    Paths.apiPath().messagesPath().protectedPath(),
+    Paths.apiPath().messagesPath().adminPath(),
+    Paths.apiPath().messagesPath().listPath(),
+    Paths.apiPath().messagesPath().exportPath()
+  );
+
+  private final Map<MessagesEndpoint, RouteStats> stats = new LinkedHashMap<>();
+
+  private final Tokens tokens;
+
+  private final double invalidShare;
+
+  private final boolean acceptGzip;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  // With HTTP_2 the client upgrades its connections to h2c, as long as the app's transport mode allows it
+  private LoadTest(
+    final int port,
+    final LocalIssuer issuer,
+    final HttpClient.Version version,
+    final boolean acceptGzip,
+    final double invalidShare,
+    final int maximumRequests
+  ) {
+    this.client = HttpClient.newBuilder()
+      .version(version)
+      .connectTimeout(REQUEST_TIMEOUT)
+      .build();
+    this.baseUri = "http://127.0.0.1:" + port;
+    this.tokens = new Tokens(issuer);
+    this.acceptGzip = acceptGzip;
+    this.invalidShare = invalidShare;
+
+    for (final var route : routes) {
+      stats.put(route, new RouteStats(route.build(), maximumRequests / routes.size() + 1));
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final var rps = Integer.getInteger("load.rps", 200);
+    final var seconds = Integer.getInteger("load.seconds", 30);
+    final var warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+    final var invalidShare = Double.parseDouble(System.getProperty("load.invalidShare", "0.1"));
+    final var rotateSeconds = Integer.getInteger("load.rotateSeconds", 0);
+    final var stack = WebApplicationType.valueOf(System.getProperty("load.stack", "servlet").toUpperCase(Locale.ROOT));
+    final var version = "2".equals(System.getProperty("load.http", "1.1"))
+      ? HttpClient.Version.HTTP_2
+      : HttpClient.Version.HTTP_1_1;
+    final var acceptGzip = Boolean.parseBoolean(System.getProperty("load.gzip", "true"));
+    final var messages = Integer.getInteger("load.messages", 1000);
+    final var virtualThreads = Boolean.getBoolean("load.virtualThreads");
+    final var resultFile = Path.of(args[0]);
+    final var total = (int) Math.min(Integer.MAX_VALUE, (long) rps * seconds);
+
+    final var seedFile = seedFile(messages);
+
+    try (var issuer = LocalIssuer.start();
+         var context = LocalApplication.start(
+           issuer,
+           stack,
+           "--application.messages.seed-file=" + seedFile,
+           "--application.virtual-threads=" + virtualThreads
+         );
+         var wire = WireCounter.start(LocalApplication.port(context))) {
+      if (rotateSeconds > 0) {
+        issuer.rotateEvery(Duration.ofSeconds(rotateSeconds));
+      }
+
+      // same load, not measured, so the JIT has compiled the hot paths before the numbers start
+      if (warmupSeconds > 0) {
+        final var warmupTotal = rps * warmupSeconds;
+
+        new LoadTest(wire.port(), issuer, version, acceptGzip, invalidShare, warmupTotal).run(rps, warmupTotal);
+        wire.reset();
+      }
+
+      final var test = new LoadTest(wire.port(), issuer, version, acceptGzip, invalidShare, total);
+      final var elapsed = test.run(rps, total);
+      final var results = new LinkedHashMap<String, Object>();
+      final var routes = new LinkedHashMap<String, Object>();
+      final var wireSummary = wire.summary(total);
+
+      System.out.printf(
+        "%d requests at %d/s over %s on the %s stack (%s threads) took %.1f s%n",
+        total,
+        rps,
+        version,
+        stack,
+        virtualThreads ? "virtual" : "platform",
+        elapsed
+      );
+      System.out.printf(
+        "%d connections (at most %d open at once), %d bytes to the app, %d back, %d per request%n",
+        wireSummary.get("connections"),
+        wireSummary.get("peakOpenConnections"),
+        wireSummary.get("bytesToServer"),
+        wireSummary.get("bytesToClient"),
+        wireSummary.get("bytesPerRequest")
+      );
+      System.out.printf(
+        "%-28s %8s %7s %8s %8s %8s %8s %8s %9s %10s %7s %7s%n",
+        "route", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "rejected", "unexpected",
+        "shed", "failed"
+      );
+
+      for (final var routeStats : test.stats.values()) {
+        final var summary = routeStats.summary(elapsed);
+
+        routes.put(routeStats.route(), summary);
+        System.out.printf(
+          "%-28s %8d %7d %8.2f %8.2f %8.2f %8.2f %8.2f %9d %10d %7d %7d%n",
+          routeStats.route(),
+          summary.get("requests"),
+          summary.get("throughputPerSecond"),
+          summary.get("p50Millis"),
+          summary.get("p90Millis"),
+          summary.get("p99Millis"),
+          summary.get("p999Millis"),
+          summary.get("maxMillis"),
+          summary.get("rejectedTokens"),
+          summary.get("unexpectedlyRejectedTokens"),
+          summary.get("overloaded"),
+          summary.get("failed")
+        );
+      }
+
+      results.put("stack", stack.name().toLowerCase(Locale.ROOT));
+      results.put("virtualThreads", virtualThreads);
+      results.put("targetPerSecond", rps);
+      results.put("seconds", elapsed);
+      results.put("warmupSeconds", warmupSeconds);
+      results.put("invalidTokenShare", invalidShare);
+      results.put("rotateSeconds", rotateSeconds);
+      results.put("http", version.name());
+      results.put("acceptGzip", acceptGzip);
+      results.put("storedMessages", messages);
+      results.put("wire", wireSummary);
+      results.put("routes", routes);
+      Files.createDirectories(resultFile.toAbsolutePath().getParent());
+      new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), results);
+    } finally {
+      Files.deleteIfExists(seedFile);
+    }
+  }
+
+  // Sentences of 8 to 24 words picked from a small vocabulary, so gzip gets text to work on rather than
+  // one line repeated. Seeded, every run stores the same messages
+  private static Path seedFile(final int messages) throws IOException {
+    final var random = new Random(42);
+    final var lines = new ArrayList<String>(messages);
+
+    for (var i = 0; i < messages; i++) {
+      final var words = new StringJoiner(" ", "Message " + (i + 1) + ": ", ".");
+
+      for (var w = 8 + random.nextInt(17); w > 0; w--) {
+        words.add(WORDS.get(random.nextInt(WORDS.size())));
+      }
+
+      lines.add(words.toString());
+    }
+
+    final var file = Files.createTempFile("load-test-messages", ".txt");
+
+    Files.write(file, lines, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  // Sends total requests, one every 1/rps seconds, then waits for the last answers. Returns the seconds it took
+  private double run(final int rps, final int total) throws InterruptedException {
+    final var interval = TimeUnit.SECONDS.toNanos(1) / rps;
+    final var started = System.nanoTime();
+
+    for (var i = 0; i < total; i++) {
+      final var due = started + i * interval;
+
+      waitUntil(due);
+      send(routes.get(i % routes.size()), due);
+    }
+
+    final var deadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+
+    while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+      Thread.sleep(10);
+    }
+
+    return (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  private void send(final MessagesEndpoint route, final long due) {
+    final var routeStats = stats.get(route);
+    final var withToken = route.access() == Paths.Access.AUTHENTICATED;
+    final var valid = !withToken || ThreadLocalRandom.current().nextDouble() >= invalidShare;
+    final var request = HttpRequest.newBuilder(URI.create(baseUri + route.build()))
+      .timeout(REQUEST_TIMEOUT)
+      .GET();
+
+    if (acceptGzip) {
+      request.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+    }
+
+    if (withToken) {
+      request.header(HttpHeaders.AUTHORIZATION, "Bearer " + (valid ? tokens.valid() : tokens.invalid()));
+    }
+
+    inFlight.incrementAndGet();
+    client.sendAsync(request.build(), BodyHandlers.discarding())
+      .whenComplete((response, error) -> {
+        final var latency = System.nanoTime() - due;
+
+        if (Objects.nonNull(error)) {
+          routeStats.failed(latency);
+        } else {
+          routeStats.record(latency, response.statusCode(), withToken, valid);
+        }
+
+        inFlight.decrementAndGet();
+      });
+  }
+
+  private static void waitUntil(final long due) {
+    var remaining = due - System.nanoTime();
+
+    while (remaining > 0) {
+      if (remaining > SPIN_NANOS) {
+        LockSupport.parkNanos(remaining - SPIN_NANOS);
+      } else {
+        Thread.onSpinWait();
+      }
+
+      remaining = due - System.nanoTime();
+    }
+  }
+
+  // Tokens are minted ahead of time, signing them isn't what's measured. The valid ones are minted again
+  // once the issuer has rotated its key, like clients get new tokens from the new key after a rotation
+  private static final class Tokens {
+
+    private final LocalIssuer issuer;
+
+    private final List<String> invalid;
+
+    private volatile Signed valid;
+
+    Tokens(final LocalIssuer issuer) {
+      final var hour = Duration.ofHours(1);
+
+      this.issuer = issuer;
+      this.invalid = List.of(
+        issuer.mint(LocalIssuer.AUDIENCE, hour.negated()),
+        issuer.mint("https://someone-else.example.com", hour),
+        LocalIssuer.mint(LocalIssuer.generateKey("unknown"), issuer.issuerUri(), LocalIssuer.AUDIENCE, hour),
+        "not-a-jwt"
+      );
+      this.valid = mint(issuer.key());
+    }
+
+    String valid() {
+      var current = valid;
+
+      if (current.key() != issuer.key()) {
+        current = remint();
+      }
+
+      return current.tokens().get(ThreadLocalRandom.current().nextInt(current.tokens().size()));
+    }
+
+    String invalid() {
+      return invalid.get(ThreadLocalRandom.current().nextInt(invalid.size()));
+    }
+
+    private synchronized Signed remint() {
+      final var key = issuer.key();
+
+      if (valid.key() != key) {
+        valid = mint(key);
+      }
+
+      return valid;
+    }
+
+    // one token per subject, so per-subject state in the app (rate limit buckets, the token cache) sees many clients
+    private Signed mint(final RSAKey key) {
+      final var minted = new ArrayList<String>(SUBJECTS);
+
+      for (var i = 0; i < SUBJECTS; i++) {
+        minted.add(LocalIssuer.mint(
+          key,
+          issuer.issuerUri(),
+          LocalIssuer.AUDIENCE,
+          Duration.ofHours(1),
+          Map.of("sub", "auth0|load-" + i)
+        ));
+      }
+
+      return new Signed(key, List.copyOf(minted));
+    }
+  }
+
+  private record Signed(RSAKey key, List<String> tokens) {
+
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.helloworld.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpStatus;
+
+// What LoadTest saw for one route. Latencies are kept whole (8 bytes per request), the percentiles are exact.
+// A latency runs from when the request was due to be sent, not when it was, so a client that falls behind
+// shows up in the numbers instead of quietly sending less.
+final class RouteStats {
+
+  private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  private final String route;
+
+  private final long[] latencies;
+
+  private final AtomicInteger recorded = new AtomicInteger();
+
+  private final LongAdder ok = new LongAdder();
+
+  // 401s for tokens that were meant to be rejected, and for ones that weren't
+  private final LongAdder rejected = new LongAdder();
+
+  private final LongAdder unexpectedlyRejected = new LongAdder();
+
+  private final LongAdder rateLimited = new LongAdder();
+
+  // 503s from the concurrency limiter
+  private final LongAdder overloaded = new LongAdder();
+
+  private final LongAdder otherStatus = new LongAdder();
+
+  // no response at all: refused, reset or timed out
+  private final LongAdder failed = new LongAdder();
+
+  private final LongAdder authenticated = new LongAdder();
+
+  RouteStats(final String route, final int maximumRequests) {
+    this.route = route;
+    this.latencies = new long[maximumRequests];
+  }
+
+  void record(final long latencyNanos, final int status, final boolean withToken, final boolean validToken) {
+    addLatency(latencyNanos);
+
+    if (withToken) {
+      authenticated.increment();
+    }
+
+    if (status == HttpStatus.OK.value()) {
+      ok.increment();
+    } else if (status == HttpStatus.UNAUTHORIZED.value()) {
+      (validToken ? unexpectedlyRejected : rejected).increment();
+    } else if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+      rateLimited.increment();
+    } else if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+      overloaded.increment();
+    } else {
+      otherStatus.increment();
+    }
+  }
+
+  void failed(final long latencyNanos) {
+    addLatency(latencyNanos);
+    failed.increment();
+  }
+
+  String route() {
+    return route;
+  }
+
+  Map<String, Object> summary(final double seconds) {
+    final var count = Math.min(recorded.get(), latencies.length);
+    final var sorted = Arrays.copyOf(latencies, count);
+    final var summary = new LinkedHashMap<String, Object>();
+
+    Arrays.sort(sorted);
+    summary.put("requests", count);
+    summary.put("throughputPerSecond", Math.round(count / seconds));
+    summary.put("ok", ok.sum());
+    summary.put("rejectedTokens", rejected.sum());
+    summary.put("unexpectedlyRejectedTokens", unexpectedlyRejected.sum());
+    summary.put("rejectedTokenRate", authenticated.sum() == 0
+      ? 0.0
+      : (double) (rejected.sum() + unexpectedlyRejected.sum()) / authenticated.sum());
+    summary.put("rateLimited", rateLimited.sum());
+    summary.put("overloaded", overloaded.sum());
+    summary.put("otherStatus", otherStatus.sum());
+    summary.put("failed", failed.sum());
+
+    for (var i = 0; i < PERCENTILES.length; i++) {
+      summary.put(PERCENTILE_NAMES[i] + "Millis", millis(sorted, PERCENTILES[i]));
+    }
+
+    summary.put("maxMillis", count == 0 ? 0.0 : toMillis(sorted[count - 1]));
+    return summary;
+  }
+
+  private void addLatency(final long latencyNanos) {
+    final var index = recorded.getAndIncrement();
+
+    if (index < latencies.length) {
+      latencies[index] = latencyNanos;
+    }
+  }
+
+  private static double millis(final long[] sorted, final double percentile) {
+    if (sorted.length == 0) {
+      return 0.0;
+    }
+
+    final var index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+    return toMillis(sorted[Math.max(0, index)]);
+  }
+
+  private static double toMillis(final long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.helloworld.loadtest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// TCP relay between LoadTest's client and the app, counting what crosses the wire: connections opened, the most
+// open at once, and bytes each way with headers, framing and compressed bodies included. That shows whether
+// HTTP/2 and compression cut connections per node and bytes, which the client's own API doesn't expose.
+// Two blocking threads per connection, fine for the few hundred connections a load test opens.
+final class WireCounter implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final ServerSocket server;
+
+  private final int targetPort;
+
+  private final ExecutorService relays = Executors.newCachedThreadPool(runnable -> {
+    final var thread = new Thread(runnable, "wire-counter");
+
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder connections = new LongAdder();
+
+  private final AtomicInteger open = new AtomicInteger();
+
+  private final AtomicInteger peakOpen = new AtomicInteger();
+
+  private final LongAdder bytesToServer = new LongAdder();
+
+  private final LongAdder bytesToClient = new LongAdder();
+
+  private WireCounter(final int targetPort) throws IOException {
+    this.server = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+    this.targetPort = targetPort;
+  }
+
+  static WireCounter start(final int targetPort) throws IOException {
+    final var counter = new WireCounter(targetPort);
+
+    counter.relays.execute(counter::accept);
+    return counter;
+  }
+
+  int port() {
+    return server.getLocalPort();
+  }
+
+  // Starts counting again, e.g. after a warm-up. Connections still open count as opened from here
+  void reset() {
+    connections.reset();
+    connections.add(open.get());
+    peakOpen.set(open.get());
+    bytesToServer.reset();
+    bytesToClient.reset();
+  }
+
+  Map<String, Object> summary(final long requests) {
+    final var summary = new LinkedHashMap<String, Object>();
+    final var toServer = bytesToServer.sum();
+    final var toClient = bytesToClient.sum();
+
+    summary.put("connections", connections.sum());
+    summary.put("peakOpenConnections", peakOpen.get());
+    summary.put("bytesToServer", toServer);
+    summary.put("bytesToClient", toClient);
+    summary.put("bytesPerRequest", requests == 0 ? 0 : (toServer + toClient) / requests);
+    return summary;
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    relays.shutdownNow();
+
+    for (final var socket : sockets) {
+      socket.close();
+    }
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      final Socket client;
+
+      try {
+        client = server.accept();
+      } catch (final IOException e) {
+        // closed, the loop ends
+        continue;
+      }
+
+      try {
+        relay(client);
+      } catch (final IOException e) {
+        // the app refused, the client sees its connection fail
+        closeQuietly(client);
+      }
+    }
+  }
+
+  private void relay(final Socket client) throws IOException {
+    final var upstream = new Socket();
+
+    upstream.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), targetPort));
+    client.setTcpNoDelay(true);
+    upstream.setTcpNoDelay(true);
+    sockets.add(client);
+    sockets.add(upstream);
+    connections.increment();
+    peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+
+    final var halves = new AtomicInteger(2);
+
+    try {
+      relays.execute(() -> pump(client, upstream, bytesToServer, halves));
+      relays.execute(() -> pump(upstream, client, bytesToClient, halves));
+    } catch (final RejectedExecutionException e) {
+      // accepted while closing
+      closeQuietly(client);
+      closeQuietly(upstream);
+    }
+  }
+
+  // Copies one direction until it ends, then ends the other side's output the same way.
+  // Whichever half finishes last closes both sockets
+  private void pump(final Socket from, final Socket to, final LongAdder bytes, final AtomicInteger halves) {
+    final var buffer = new byte[BUFFER_SIZE];
+
+    try {
+      final var in = from.getInputStream();
+      final var out = to.getOutputStream();
+      var read = in.read(buffer);
+
+      while (read >= 0) {
+        out.write(buffer, 0, read);
+        bytes.add(read);
+        read = in.read(buffer);
+      }
+
+      to.shutdownOutput();
+    } catch (final IOException e) {
+      // reset or closed, the other direction goes down with it
+      closeQuietly(from);
+      closeQuietly(to);
+    } finally {
+      if (halves.decrementAndGet() == 0) {
+        closeQuietly(from);
+        closeQuietly(to);
+        open.decrementAndGet();
+      }
+    }
+  }
+
+  private void closeQuietly(final Socket socket) {
+    sockets.remove(socket);
+
+    try {
+      socket.close();
+    } catch (final IOException e) {
+      // already closed
+    }
+  }
+}